@@ -0,0 +1,68 @@
+package ru.practicum.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Collectors;
+
+/**
+ * Диагностика закрепления виртуальных потоков (spring.threads.virtual.enabled) за платформенными.
+ * Виртуальный поток, заблокированный внутри synchronized или нативного вызова, не освобождает поток-носитель,
+ * поэтому такие места ограничивают параллелизм. Событие JFR jdk.VirtualThreadPinned длиннее threshold
+ * учитывается в метрике jvm.threads.virtual.pinned и пишется в лог с верхними кадрами стека.
+ * Модуль common подключают и сервисы core (через interaction-api), и stats-server.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "virtual-threads.pinning-monitor", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final VirtualThreadPinningProperties properties;
+    private final Timer pinnedTimer;
+    private final RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(VirtualThreadPinningProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Время, на которое виртуальные потоки закреплялись за платформенными")
+                .register(meterRegistry);
+        this.recordingStream = new RecordingStream();
+        this.recordingStream.enable(PINNED_EVENT).withThreshold(properties.getThreshold()).withStackTrace();
+        this.recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+    }
+
+    @PostConstruct
+    public void start() {
+        recordingStream.startAsync();
+        log.info("Включено отслеживание закрепления виртуальных потоков длиннее {}", properties.getThreshold());
+    }
+
+    @PreDestroy
+    public void stop() {
+        recordingStream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration());
+        String stack = event.getStackTrace() == null ? "" : event.getStackTrace().getFrames().stream()
+                .limit(properties.getStackDepth())
+                .map(VirtualThreadPinningMonitor::formatFrame)
+                .collect(Collectors.joining("\n    at ", "\n    at ", ""));
+        log.warn("Виртуальный поток {} был закреплен за платформенным {} мс{}",
+                event.getThread() != null ? event.getThread().getJavaName() : "?", event.getDuration().toMillis(), stack);
+    }
+
+    private static String formatFrame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.monitoring;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "virtual-threads.pinning-monitor")
+public class VirtualThreadPinningProperties {
+
+    private boolean enabled = true; // Отслеживать ли закрепление виртуальных потоков за платформенными через JFR
+
+    private Duration threshold = Duration.ofMillis(20); // Закрепления короче этого порога не учитываются
+
+    private int stackDepth = 8; // Сколько верхних кадров стека выводить в лог
+}
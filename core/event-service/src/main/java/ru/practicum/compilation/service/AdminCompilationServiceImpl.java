@@ -3,23 +3,20 @@ package ru.practicum.compilation.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.client.UserClient;
 import ru.practicum.compilation.mapper.CompilationMapper;
 import ru.practicum.compilation.model.Compilation;
 import ru.practicum.compilation.repository.CompilationRepository;
 import ru.practicum.dto.compilation.CompilationDto;
 import ru.practicum.dto.compilation.NewCompilationDto;
 import ru.practicum.dto.compilation.UpdateCompilationRequest;
+import ru.practicum.event.mapper.EventMapper;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.repository.EventRepository;
 import ru.practicum.exception.NotFoundException;
 import ru.practicum.user.model.User;
 
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,7 +25,7 @@ public class AdminCompilationServiceImpl implements AdminCompilationService {
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
     private final CompilationMapper compilationMapper;
-    private final UserClient userServiceClient;
+    private final EventMapper eventMapper;
 
     @Override
     @Transactional
@@ -38,7 +35,7 @@ public class AdminCompilationServiceImpl implements AdminCompilationService {
         compilation.setEvents(events);
 
         Compilation savedCompilation = compilationRepository.save(compilation);
-        Map<Long, User> users = loadUsersForEvents(savedCompilation.getEvents());
+        Map<Long, User> users = eventMapper.loadInitiators(savedCompilation.getEvents());
 
         return compilationMapper.toCompilationDto(savedCompilation, users);
     }
@@ -60,7 +57,7 @@ public class AdminCompilationServiceImpl implements AdminCompilationService {
         }
 
         Compilation updatedCompilation = compilationRepository.save(compilation);
-        Map<Long, User> users = loadUsersForEvents(updatedCompilation.getEvents());
+        Map<Long, User> users = eventMapper.loadInitiators(updatedCompilation.getEvents());
 
         return compilationMapper.toCompilationDto(updatedCompilation, users);
     }
@@ -76,12 +73,4 @@ public class AdminCompilationServiceImpl implements AdminCompilationService {
         return compilationRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Подборки событий с id = " + id + " не существует"));
     }
-
-    private Map<Long, User> loadUsersForEvents(Set<Event> events) {
-        List<Long> userIds = events.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toList());
-        return userServiceClient.getUsersWithIds(userIds).stream()
-                .collect(Collectors.toMap(User::getId, Function.identity()));
-    }
 }
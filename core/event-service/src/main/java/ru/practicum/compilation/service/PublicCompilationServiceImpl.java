@@ -6,20 +6,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.client.UserClient;
 import ru.practicum.compilation.mapper.CompilationMapper;
 import ru.practicum.compilation.model.Compilation;
 import ru.practicum.compilation.repository.CompilationRepository;
 import ru.practicum.dto.compilation.CompilationDto;
-import ru.practicum.event.model.Event;
+import ru.practicum.event.mapper.EventMapper;
 import ru.practicum.exception.NotFoundException;
 import ru.practicum.user.model.User;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -27,7 +23,7 @@ import java.util.stream.Collectors;
 public class PublicCompilationServiceImpl implements PublicCompilationService {
     private final CompilationRepository compilationRepository;
     private final CompilationMapper compilationMapper;
-    private final UserClient userServiceClient;
+    private final EventMapper eventMapper;
 
     @Override
     @Transactional(readOnly = true)
@@ -35,7 +31,7 @@ public class PublicCompilationServiceImpl implements PublicCompilationService {
         Compilation compilation = compilationRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Подборка с " + id + "не найдена"));
 
-        Map<Long, User> users = loadUsersForEvents(compilation.getEvents());
+        Map<Long, User> users = eventMapper.loadInitiators(compilation.getEvents());
         return compilationMapper.toCompilationDto(compilation, users);
     }
 
@@ -55,21 +51,9 @@ public class PublicCompilationServiceImpl implements PublicCompilationService {
         return compilationsDto;
     }
 
-    private Map<Long, User> loadUsersForEvents(Set<Event> events) {
-        List<Long> userIds = events.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toList());
-        return userServiceClient.getUsersWithIds(userIds).stream()
-                .collect(Collectors.toMap(User::getId, Function.identity()));
-    }
-
     private Map<Long, User> loadUsersForAllEvents(List<Compilation> compilations) {
-        List<Long> userIds = compilations.stream()
+        return eventMapper.loadInitiators(compilations.stream()
                 .flatMap(c -> c.getEvents().stream())
-                .map(Event::getInitiatorId)
-                .distinct()
-                .collect(Collectors.toList());
-        return userServiceClient.getUsersWithIds(userIds).stream()
-                .collect(Collectors.toMap(User::getId, Function.identity()));
+                .toList());
     }
 }
@@ -0,0 +1,19 @@
+package ru.practicum.event.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "event.confirmed-requests-updates")
+public class ConfirmedRequestsUpdateProperties {
+
+    private Duration retention = Duration.ofDays(7); // Сколько хранить ключи примененных изменений для отсева повторов
+
+    private Duration purgeInterval = Duration.ofHours(1); // Период удаления устаревших ключей
+}
@@ -0,0 +1,19 @@
+package ru.practicum.event.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "event.views-cache")
+public class EventViewsCacheProperties {
+
+    private Duration ttl = Duration.ofSeconds(5); // Сколько просмотры события считаются актуальными
+
+    private long maximumSize = 100_000; // Максимальное количество событий в кэше
+}
@@ -0,0 +1,17 @@
+package ru.practicum.event.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "event.remote-lookup")
+public class RemoteLookupProperties {
+
+    private Duration timeout = Duration.ofSeconds(2); // Общий срок на параллельные запросы к другим сервисам в рамках одного запроса
+}
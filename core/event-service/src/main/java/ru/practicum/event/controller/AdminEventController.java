@@ -5,11 +5,13 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.event.EventFullDto;
 import ru.practicum.dto.event.UpdateEventAdminRequest;
 import ru.practicum.event.model.EventState;
+import ru.practicum.event.pagination.CursorSlice;
 import ru.practicum.event.service.AdminEventService;
 import ru.practicum.validation.UpdateGroup;
 
@@ -36,18 +38,26 @@ public class AdminEventController {
     }
 
     @GetMapping
-    public List<EventFullDto> getEventsByParams(@RequestParam(required = false) List<Long> userIds,
-                                                @RequestParam(required = false) List<EventState> states,
-                                                @RequestParam(required = false) List<Long> categoryIds,
-                                                @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeStart,
-                                                @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeEnd,
-                                                @RequestParam(defaultValue = "0") @PositiveOrZero(message = "Параметр 'from' не может быть отрицательным") Long from,
-                                                @RequestParam(defaultValue = "10") @Positive(message = "Параметр 'size' должен быть больше 0") Long size) {
+    public ResponseEntity<List<EventFullDto>> getEventsByParams(@RequestParam(required = false) List<Long> userIds,
+                                                                @RequestParam(required = false) List<EventState> states,
+                                                                @RequestParam(required = false) List<Long> categoryIds,
+                                                                @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeStart,
+                                                                @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeEnd,
+                                                                @RequestParam(defaultValue = "0") @PositiveOrZero(message = "Параметр 'from' не может быть отрицательным") Long from,
+                                                                @RequestParam(defaultValue = "10") @Positive(message = "Параметр 'size' должен быть больше 0") Long size,
+                                                                @RequestParam(required = false) String cursor) {
         log.info("Поступил запрос Get /admin/events на получение Events с параметрами: userIds = {}, " +
-                        "states = {}, categoryIds = {}, rangeStart = {}, rangeEnd = {}, from = {}, size = {}",
-                userIds, states, categoryIds, rangeStart, rangeEnd, from, size);
+                        "states = {}, categoryIds = {}, rangeStart = {}, rangeEnd = {}, from = {}, size = {}, cursor = {}",
+                userIds, states, categoryIds, rangeStart, rangeEnd, from, size, cursor);
+        // с параметром cursor (пустым для первой страницы) выдача идет по курсору вместо смещения from
+        if (cursor != null) {
+            CursorSlice<EventFullDto> slice = adminEventService.findEventByParamsAfter(userIds, states, categoryIds,
+                    rangeStart, rangeEnd, cursor, size);
+            log.info("Сформирован ответ Get /admin/events с телом: {}, следующий курсор: {}", slice.content(), slice.nextCursor());
+            return slice.toResponse();
+        }
         List<EventFullDto> response = adminEventService.findEventByParams(userIds, states, categoryIds, rangeStart, rangeEnd, from, size);
         log.info("Сформирован ответ Get /admin/events с телом: {}", response);
-        return response;
+        return ResponseEntity.ok(response);
     }
 }
@@ -6,10 +6,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.client.EventClient;
+import ru.practicum.dto.event.ConfirmedRequestsUpdateDto;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.service.AdminEventService;
 import ru.practicum.event.service.PublicEventService;
 
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -36,4 +38,9 @@ public class EventClientController implements EventClient {
         return response;
     }
 
+    @Override
+    public void applyConfirmedRequestsUpdates(List<ConfirmedRequestsUpdateDto> updates) throws FeignException {
+        log.info("Поступил запрос Post /internal/api/events/confirmed-requests/updates с {} изменениями", updates.size());
+        adminEventService.applyConfirmedRequestsUpdates(updates);
+    }
 }
@@ -6,6 +6,7 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.event.EventFullDto;
@@ -33,18 +34,25 @@ public class PublicEventController {
     }
 
     @GetMapping
-    public List<EventShortDto> getEvents(@RequestParam(required = false) String text,
-                                         @RequestParam(required = false) List<Long> categories,
-                                         @RequestParam(required = false) Boolean paid,
-                                         @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeStart,
-                                         @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeEnd,
-                                         @RequestParam(defaultValue = "false") Boolean onlyAvailable,
-                                         @RequestParam(required = false) EventSort sorts,
-                                         @RequestParam(defaultValue = "0") @PositiveOrZero(message = "Параметр 'from' не может быть отрицательным") int from,
-                                         @RequestParam(defaultValue = "10") @Positive(message = "Параметр 'size' должен быть больше 0") int size,
-                                         HttpServletRequest request) {
-        log.info("Поступил запрос Get /events на получение Events с text = {}, size = {}", text, size);
-        return publicEventService.getEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sorts, from, size, request);
+    public ResponseEntity<List<EventShortDto>> getEvents(@RequestParam(required = false) String text,
+                                                         @RequestParam(required = false) List<Long> categories,
+                                                         @RequestParam(required = false) Boolean paid,
+                                                         @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeStart,
+                                                         @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeEnd,
+                                                         @RequestParam(defaultValue = "false") Boolean onlyAvailable,
+                                                         @RequestParam(required = false) EventSort sorts,
+                                                         @RequestParam(defaultValue = "0") @PositiveOrZero(message = "Параметр 'from' не может быть отрицательным") int from,
+                                                         @RequestParam(defaultValue = "10") @Positive(message = "Параметр 'size' должен быть больше 0") int size,
+                                                         @RequestParam(required = false) String cursor,
+                                                         HttpServletRequest request) {
+        log.info("Поступил запрос Get /events на получение Events с text = {}, size = {}, cursor = {}", text, size, cursor);
+        // с параметром cursor (пустым для первой страницы) выдача идет по курсору вместо смещения from
+        if (cursor != null) {
+            return publicEventService.getEventsAfter(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sorts,
+                    cursor, size, request).toResponse();
+        }
+        return ResponseEntity.ok(publicEventService.getEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable,
+                sorts, from, size, request));
     }
 
 }
@@ -1,6 +1,8 @@
 package ru.practicum.event.mapper;
 
+import feign.FeignException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import ru.practicum.category.mapper.CategoryMapper;
 import ru.practicum.category.model.Category;
@@ -12,16 +14,20 @@ import ru.practicum.dto.event.UpdateEventUserRequest;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.model.EventState;
 import ru.practicum.exception.NotFoundException;
+import ru.practicum.dto.user.UserShortDto;
 import ru.practicum.user.mapper.UserMapper;
 import ru.practicum.user.model.User;
 
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class EventMapper {
@@ -78,27 +84,9 @@ public class EventMapper {
 
     }
 
+    // Для одного события инициатор обязателен: неизвестный пользователь - это NotFoundException, как и раньше
     public EventFullDto toEventFullDto(Event event) {
-        User user = getUser(event.getInitiatorId());
-
-        EventFullDto dto = new EventFullDto();
-        dto.setId(event.getId());
-        dto.setAnnotation(event.getAnnotation());
-        dto.setDescription(event.getDescription());
-        dto.setEventDate(event.getEventDate());
-        dto.setLocation(event.getLocation());
-        dto.setPaid(event.isPaid());
-        dto.setParticipantLimit(event.getParticipantLimit());
-        dto.setRequestModeration(event.isRequestModeration());
-        dto.setState(event.getState());
-        dto.setTitle(event.getTitle());
-        dto.setCreatedOn(event.getCreatedOn());
-        dto.setPublishedOn(event.getPublishedOn());
-        dto.setInitiator(UserMapper.toUserShortDto(user));
-        dto.setCategory(CategoryMapper.mapToCategoryDto(event.getCategory()));
-        dto.setConfirmedRequests(event.getConfirmedRequests() != null ? event.getConfirmedRequests() : 0L);
-        dto.setViews(event.getViews() != null ? event.getViews() : 0L);
-        return dto;
+        return toEventFullDto(event, getInitiator(event));
     }
 
     public EventFullDto toEventFullDto(Event event, User user) {
@@ -115,36 +103,23 @@ public class EventMapper {
         dto.setTitle(event.getTitle());
         dto.setCreatedOn(event.getCreatedOn());
         dto.setPublishedOn(event.getPublishedOn());
-        dto.setInitiator(UserMapper.toUserShortDto(user));
+        dto.setInitiator(toInitiatorDto(event, user));
         dto.setCategory(CategoryMapper.mapToCategoryDto(event.getCategory()));
         dto.setConfirmedRequests(event.getConfirmedRequests() != null ? event.getConfirmedRequests() : 0L);
         dto.setViews(event.getViews() != null ? event.getViews() : 0L);
         return dto;
     }
 
+    // Списки событий преобразуются с загрузкой инициаторов одним запросом к user-service
     public List<EventFullDto> toEventFullDto(List<Event> events) {
-        List<Long> userIds = events.stream().map(Event::getInitiatorId).toList();
-        Map<Long, User> users = loadUsers(userIds);
-        Map<Long, Category> categories = events.stream().collect(Collectors.toMap(Event::getId, Event::getCategory));
+        Map<Long, User> users = loadInitiators(events);
         return events.stream()
             .map(e -> toEventFullDto(e, users.get(e.getInitiatorId())))
             .toList();
     }
 
     public EventShortDto toEventShortDto(Event event) {
-        User user = getUser(event.getInitiatorId());
-
-        EventShortDto dto = new EventShortDto();
-        dto.setId(event.getId());
-        dto.setAnnotation(event.getAnnotation());
-        dto.setEventDate(event.getEventDate());
-        dto.setPaid(event.isPaid());
-        dto.setTitle(event.getTitle());
-        dto.setConfirmedRequests(event.getConfirmedRequests() != null ? event.getConfirmedRequests() : 0L);
-        dto.setViews(event.getViews() != null ? event.getViews() : 0L);
-        dto.setInitiator(UserMapper.toUserShortDto(user));
-        dto.setCategory(CategoryMapper.mapToCategoryDto(event.getCategory()));
-        return dto;
+        return toEventShortDto(event, getInitiator(event));
     }
 
     public EventShortDto toEventShortDto(Event event, User user) {
@@ -156,27 +131,58 @@ public class EventMapper {
         dto.setTitle(event.getTitle());
         dto.setConfirmedRequests(event.getConfirmedRequests() != null ? event.getConfirmedRequests() : 0L);
         dto.setViews(event.getViews() != null ? event.getViews() : 0L);
-        dto.setInitiator(UserMapper.toUserShortDto(user));
+        dto.setInitiator(toInitiatorDto(event, user));
         dto.setCategory(CategoryMapper.mapToCategoryDto(event.getCategory()));
         return dto;
     }
 
     public List<EventShortDto> toEventShortDto(List<Event> events) {
-        List<Long> userIds = events.stream().map(Event::getInitiatorId).toList();
-        Map<Long, User> users = loadUsers(userIds);
-        Map<Long, Category> categories = events.stream().collect(Collectors.toMap(Event::getId, Event::getCategory));
+        return toEventShortDto(events, loadInitiators(events));
+    }
+
+    // Для уже загруженных через loadInitiators инициаторов
+    public List<EventShortDto> toEventShortDto(List<Event> events, Map<Long, User> users) {
         return events.stream()
             .map(e -> toEventShortDto(e, users.get(e.getInitiatorId())))
             .toList();
+    }
+
+    // Инициаторы событий одним запросом по уникальным id; отсутствующие пользователи в результат не попадают.
+    // Только ответ 404 означает отсутствие пользователей, остальные ошибки user-service пробрасываются вызывающему
+    public Map<Long, User> loadInitiators(Collection<Event> events) {
+        List<Long> userIds = events.stream()
+            .map(Event::getInitiatorId)
+            .filter(Objects::nonNull)
+            .distinct()
+            .toList();
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
 
+        try {
+            return userServiceClient.getUsersWithIds(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity(), (first, second) -> first));
+        } catch (FeignException.NotFound e) {
+            log.warn("Инициаторы событий {} не найдены", userIds);
+            return Map.of();
+        }
     }
 
-    private Map<Long, User> loadUsers(List<Long> ids) {
-        return userServiceClient.getUsersWithIds(ids).stream().collect(Collectors.toMap(User::getId, user -> user));
+    private User getInitiator(Event event) {
+        User user = loadInitiators(List.of(event)).get(event.getInitiatorId());
+        if (user == null) {
+            throw new NotFoundException("Пользователь с id = " + event.getInitiatorId() + " не найден");
+        }
+        return user;
     }
 
-    private User getUser(Long userId) {
-        return userServiceClient.getUserById(userId)
-            .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
+    // Если пользователь не найден, в ответе остается только id инициатора
+    private UserShortDto toInitiatorDto(Event event, User user) {
+        if (user != null) {
+            return UserMapper.toUserShortDto(user);
+        }
+        UserShortDto dto = new UserShortDto();
+        dto.setId(event.getInitiatorId());
+        return dto;
     }
 }
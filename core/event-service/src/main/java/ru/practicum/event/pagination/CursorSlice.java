@@ -0,0 +1,25 @@
+package ru.practicum.event.pagination;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Страница выдачи по курсору; nextCursor = null, если следующей страницы нет
+public record CursorSlice<T>(List<T> content, String nextCursor) {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public <R> CursorSlice<R> map(Function<List<T>, List<R>> mapper) {
+        return new CursorSlice<>(mapper.apply(content), nextCursor);
+    }
+
+    // Ответ со страницей в теле и курсором следующей страницы в заголовке X-Next-Cursor
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(content);
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.event.pagination;
+
+import ru.practicum.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция в упорядоченном списке событий для постраничной выдачи по ключу (keyset):
+ * порядок сортировки, значение ключа сортировки и id последнего выданного события.
+ * Клиенту передается непрозрачной строкой base64url, следующая страница начинается строго после этой позиции,
+ * поэтому ее стоимость не зависит от глубины пролистывания.
+ */
+public record EventCursor(EventOrder order, String key, long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static EventCursor of(EventOrder order, Object key, long id) {
+        return new EventCursor(order, key == null ? "" : key.toString(), id);
+    }
+
+    // Пустая строка - первая страница
+    public static EventCursor parse(String token, EventOrder expectedOrder) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR, -1);
+            EventCursor cursor = new EventCursor(EventOrder.valueOf(parts[0]), parts[1], Long.parseLong(parts[2]));
+            if (cursor.order() != expectedOrder) {
+                throw new BadRequestException("Курсор получен для другой сортировки событий");
+            }
+            cursor.typedKey();
+            return cursor;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Некорректный курсор: " + token);
+        }
+    }
+
+    // Значение ключа сортировки в типе столбца, с которым оно сравнивается в запросе
+    public Object typedKey() {
+        return switch (order) {
+            case ID, ID_DESC -> null;
+            case RANK -> Float.parseFloat(key);
+            case VIEWS -> Long.parseLong(key);
+            case EVENT_DATE -> Timestamp.valueOf(LocalDateTime.parse(key));
+        };
+    }
+
+    public String encode() {
+        String raw = order.name() + SEPARATOR + key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
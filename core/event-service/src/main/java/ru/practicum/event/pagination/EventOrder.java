@@ -0,0 +1,10 @@
+package ru.practicum.event.pagination;
+
+// Порядки выдачи событий, для которых поддерживается курсор
+public enum EventOrder {
+    ID, // по возрастанию id
+    ID_DESC, // по убыванию id
+    RANK, // по убыванию релевантности полнотекстового поиска, затем по возрастанию id
+    VIEWS, // по убыванию просмотров, затем по возрастанию id
+    EVENT_DATE // по возрастанию даты события, затем по возрастанию id
+}
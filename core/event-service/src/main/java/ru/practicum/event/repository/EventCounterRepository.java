@@ -0,0 +1,67 @@
+package ru.practicum.event.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.dto.event.ConfirmedRequestsUpdateDto;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Изменение events.confirmed_requests одним UPDATE без чтения и перезаписи события.
+ * Лимит участников проверяет request-service, который ведет заявки; сюда приходят уже принятые изменения,
+ * и они применяются идемпотентно: ключи примененных изменений хранятся в confirmed_requests_update.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventCounterRepository {
+
+    // изменение применяется, только если его ключ вставлен впервые; строки событий блокируются в порядке id
+    private static final String APPLY_UPDATES_SQL = """
+            WITH u AS (
+                SELECT * FROM unnest(?::varchar[], ?::bigint[], ?::bigint[]) AS u(update_key, event_id, delta)
+            ), applied AS (
+                INSERT INTO confirmed_requests_update (update_key, applied)
+                SELECT update_key, now() FROM u
+                ON CONFLICT (update_key) DO NOTHING
+                RETURNING update_key
+            ), d AS (
+                SELECT u.event_id, SUM(u.delta) AS delta
+                FROM u JOIN applied a ON a.update_key = u.update_key
+                GROUP BY u.event_id
+            ), locked AS (
+                SELECT e.id FROM events e JOIN d ON d.event_id = e.id ORDER BY e.id FOR UPDATE
+            )
+            UPDATE events e SET confirmed_requests = GREATEST(e.confirmed_requests + d.delta, 0)
+            FROM d
+            WHERE e.id = d.event_id
+            AND e.id IN (SELECT id FROM locked)
+            """;
+
+    private static final String PURGE_UPDATES_SQL = """
+            DELETE FROM confirmed_requests_update WHERE applied < ?
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Идемпотентное применение изменений: лимит уже проверен отправителем, поэтому счетчик только не уходит ниже нуля
+    public void applyUpdates(List<ConfirmedRequestsUpdateDto> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.getJdbcTemplate().update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(APPLY_UPDATES_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", updates.stream().map(ConfirmedRequestsUpdateDto::getKey).toArray(String[]::new)));
+            ps.setArray(2, connection.createArrayOf("bigint", updates.stream().map(ConfirmedRequestsUpdateDto::getEventId).toArray(Long[]::new)));
+            ps.setArray(3, connection.createArrayOf("bigint", updates.stream().map(ConfirmedRequestsUpdateDto::getDelta).toArray(Long[]::new)));
+            return ps;
+        });
+    }
+
+    public int purgeUpdatesAppliedBefore(LocalDateTime threshold) {
+        return jdbcTemplate.getJdbcTemplate().update(PURGE_UPDATES_SQL, Timestamp.valueOf(threshold));
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.event.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,7 +14,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
 
-public interface EventRepository extends JpaRepository<Event, Long> {
+public interface EventRepository extends JpaRepository<Event, Long>, EventSearchRepository {
 
 
     Set<Event> findByIdIn(Set<Long> ids);
@@ -31,7 +32,7 @@ public interface EventRepository extends JpaRepository<Event, Long> {
             and (coalesce(:rangeEnd, null) is null or e.eventDate <= :rangeEnd)
             order by e.id desc
             """)
-    Page<Event> findByParams(
+    Slice<Event> findByParams(
             @Param("userIds") List<Long> userIds,
             @Param("states") List<EventState> states,
             @Param("categoryIds") List<Long> categoryIds,
@@ -39,34 +40,23 @@ public interface EventRepository extends JpaRepository<Event, Long> {
             @Param("rangeEnd") LocalDateTime rangeEnd,
             Pageable pageable);
 
-    @Query("SELECT e FROM Event e "
-        + "WHERE (LOWER(e.annotation) LIKE LOWER(CONCAT('%', :text, '%')) "
-        + "   OR LOWER(e.description) LIKE LOWER(CONCAT('%', :text, '%'))) "
-        + "AND (:categories IS NULL OR e.category.id IN :categories) "
-        + "AND (:paid IS NULL OR e.paid = :paid) "
-        + "AND (e.eventDate >= :rangeStart AND e.eventDate <= :rangeEnd) "
-        + "AND e.state = 'PUBLISHED' "
-        + "AND (e.participantLimit > e.confirmedRequests) ")
-    Page<Event> findAllByPublicFiltersAndOnlyAvailable(
-        @Param("text") String text,
-        @Param("categories") List<Long> categories,
-        @Param("paid") Boolean paid,
-        @Param("rangeStart") LocalDateTime rangeStart,
-        @Param("rangeEnd") LocalDateTime rangeEnd,
-        Pageable pageable);
-
-    @Query("SELECT e FROM Event e " +
-        "WHERE (COALESCE(:text, '') = '' OR LOWER(e.annotation) LIKE LOWER(CONCAT('%', :text, '%')) OR LOWER(e.description) LIKE LOWER(CONCAT('%', :text, '%'))) "
-        + "AND (:categories IS NULL OR e.category.id IN :categories) "
-        + "AND (:paid IS NULL OR e.paid = :paid) "
-        + "AND e.eventDate BETWEEN :rangeStart AND :rangeEnd "
-        + "AND e.state = 'PUBLISHED' ")
-    Page<Event> findAllByPublicFilters(
-        @Param("text") String text,
-        @Param("categories") List<Long> categories,
-        @Param("paid") Boolean paid,
-        @Param("rangeStart") LocalDateTime rangeStart,
-        @Param("rangeEnd") LocalDateTime rangeEnd,
-        Pageable pageable
-    );
+    // То же, что findByParams, но начиная с события с id меньше beforeId (beforeId = null - с начала)
+    @Query("""
+            select e from Event e
+            where (coalesce(:userIds, null) is null or e.initiatorId in :userIds)
+            and (coalesce(:states, null) is null or e.state in :states)
+            and (coalesce(:categoryIds, null) is null or e.category.id in :categoryIds)
+            and (coalesce(:rangeStart, null) is null or e.eventDate >= :rangeStart)
+            and (coalesce(:rangeEnd, null) is null or e.eventDate <= :rangeEnd)
+            and (:beforeId is null or e.id < :beforeId)
+            order by e.id desc
+            """)
+    Slice<Event> findByParamsBefore(
+            @Param("userIds") List<Long> userIds,
+            @Param("states") List<EventState> states,
+            @Param("categoryIds") List<Long> categoryIds,
+            @Param("rangeStart") LocalDateTime rangeStart,
+            @Param("rangeEnd") LocalDateTime rangeEnd,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable);
 }
@@ -0,0 +1,16 @@
+package ru.practicum.event.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.pagination.CursorSlice;
+import ru.practicum.event.pagination.EventCursor;
+
+public interface EventSearchRepository {
+
+    // Опубликованные события по фильтрам со смещением; при заданном тексте сначала наиболее релевантные
+    Slice<Event> findPublished(PublicEventFilter filter, Pageable pageable);
+
+    // То же, но страница начинается после позиции курсора (cursor = null - первая страница)
+    CursorSlice<Event> findPublishedAfter(PublicEventFilter filter, EventCursor cursor, int size);
+}
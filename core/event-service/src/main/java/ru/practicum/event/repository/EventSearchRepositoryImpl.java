@@ -0,0 +1,168 @@
+package ru.practicum.event.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.dto.event.EventSort;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.pagination.CursorSlice;
+import ru.practicum.event.pagination.EventCursor;
+import ru.practicum.event.pagination.EventOrder;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Выборка опубликованных событий динамическим SQL: сначала id страницы, затем сами события одним запросом.
+ * Поиск по тексту идет по столбцу events.search_vector (tsvector с конфигурацией russian, поддерживается самой БД
+ * при вставке и изменении события) через GIN-индекс вместо LIKE по annotation и description.
+ * Каждое слово запроса ищется как префикс, все слова должны встречаться в событии.
+ * Запрашивается на одну строку больше размера страницы, чтобы узнать о наличии следующей без count(*).
+ */
+public class EventSearchRepositoryImpl implements EventSearchRepository {
+
+    private static final String RANK = "ts_rank(e.search_vector, q)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public EventSearchRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Slice<Event> findPublished(PublicEventFilter filter, Pageable pageable) {
+        List<Row> rows = findRows(filter, null, pageable.getOffset(), pageable.getPageSize());
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(loadEvents(rows, pageable.getPageSize()), pageable, hasNext);
+    }
+
+    @Override
+    public CursorSlice<Event> findPublishedAfter(PublicEventFilter filter, EventCursor cursor, int size) {
+        List<Row> rows = findRows(filter, cursor, 0, size);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            Row last = rows.get(size - 1);
+            nextCursor = EventCursor.of(orderOf(filter), last.key(), last.id()).encode();
+        }
+        return new CursorSlice<>(loadEvents(rows, size), nextCursor);
+    }
+
+    // Порядок выдачи: явная сортировка, при поиске по тексту - по релевантности, иначе по id
+    public static EventOrder orderOf(PublicEventFilter filter) {
+        if (filter.sort() == EventSort.VIEWS) {
+            return EventOrder.VIEWS;
+        }
+        if (filter.sort() == EventSort.EVENT_DATE) {
+            return EventOrder.EVENT_DATE;
+        }
+        return toPrefixQuery(filter.text()) != null ? EventOrder.RANK : EventOrder.ID;
+    }
+
+    // Запрос для to_tsquery: слова из букв и цифр как префиксы через &, без операторов и спецсимволов пользователя
+    public static String toPrefixQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        String query = Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+        return query.isEmpty() ? null : query;
+    }
+
+    private List<Row> findRows(PublicEventFilter filter, EventCursor cursor, long offset, int size) {
+        String query = toPrefixQuery(filter.text());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("rangeStart", Timestamp.valueOf(filter.rangeStart()))
+                .addValue("rangeEnd", Timestamp.valueOf(filter.rangeEnd()))
+                .addValue("limit", size + 1)
+                .addValue("offset", offset);
+
+        EventOrder order = orderOf(filter);
+        String sortKey = switch (order) {
+            case ID, ID_DESC -> "NULL";
+            case RANK -> RANK;
+            case VIEWS -> "e.views";
+            case EVENT_DATE -> "e.event_date";
+        };
+
+        StringBuilder sql = new StringBuilder("SELECT e.id, " + sortKey + " AS sort_key\n");
+        if (query != null) {
+            sql.append("FROM events e, to_tsquery('russian', :query) q\nWHERE e.search_vector @@ q\n");
+            params.addValue("query", query);
+        } else {
+            sql.append("FROM events e\nWHERE TRUE\n");
+        }
+        sql.append("AND e.state = 'PUBLISHED'\nAND e.event_date BETWEEN :rangeStart AND :rangeEnd\n");
+        if (filter.categories() != null && !filter.categories().isEmpty()) {
+            sql.append("AND e.category_id IN (:categories)\n");
+            params.addValue("categories", filter.categories());
+        }
+        if (filter.paid() != null) {
+            sql.append("AND e.paid = :paid\n");
+            params.addValue("paid", filter.paid());
+        }
+        if (filter.onlyAvailable()) {
+            sql.append("AND e.participant_limit > e.confirmed_requests\n");
+        }
+        if (cursor != null) {
+            params.addValue("afterId", cursor.id());
+            params.addValue("afterKey", cursor.typedKey());
+            sql.append(switch (order) {
+                case ID, ID_DESC -> "AND e.id > :afterId\n";
+                // ts_rank возвращает real, поэтому значение из курсора сравнивается как real без потери точности
+                case RANK, VIEWS -> "AND (" + sortKey + " < :afterKey OR (" + sortKey + " = :afterKey AND e.id > :afterId))\n";
+                case EVENT_DATE -> "AND (e.event_date, e.id) > (:afterKey, :afterId)\n";
+            });
+        }
+        // порядки VIEWS и EVENT_DATE совпадают с индексами (state, views DESC, id) и (state, event_date, id),
+        // поэтому первые страницы читаются просмотром диапазона индекса без сортировки всех подходящих событий
+        sql.append(switch (order) {
+            case ID, ID_DESC -> "ORDER BY e.id\n";
+            case RANK, VIEWS -> "ORDER BY sort_key DESC, e.id\n";
+            case EVENT_DATE -> "ORDER BY sort_key, e.id\n";
+        });
+        sql.append("LIMIT :limit OFFSET :offset");
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> new Row(rs.getLong("id"), switch (order) {
+            case ID, ID_DESC -> null;
+            case RANK -> rs.getFloat("sort_key");
+            case VIEWS -> rs.getLong("sort_key");
+            case EVENT_DATE -> rs.getTimestamp("sort_key").toLocalDateTime();
+        }));
+    }
+
+    // События загружаются одним запросом и выдаются в порядке найденных id
+    private List<Event> loadEvents(List<Row> rows, int size) {
+        List<Long> ids = rows.stream().limit(size).map(Row::id).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Event> events = entityManager
+                .createQuery("SELECT e FROM Event e LEFT JOIN FETCH e.category WHERE e.id IN :ids", Event.class)
+                .setParameter("ids", ids)
+                .getResultStream()
+                .collect(Collectors.toMap(Event::getId, Function.identity()));
+        return ids.stream()
+                .map(events::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private record Row(long id, Object key) {
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.event.repository;
+
+import ru.practicum.dto.event.EventSort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Фильтры и сортировка публичного списка событий; text = null - без полнотекстового поиска, sort = null - по умолчанию
+public record PublicEventFilter(String text,
+                                List<Long> categories,
+                                Boolean paid,
+                                LocalDateTime rangeStart,
+                                LocalDateTime rangeEnd,
+                                boolean onlyAvailable,
+                                EventSort sort) {
+}
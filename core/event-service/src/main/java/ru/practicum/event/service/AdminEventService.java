@@ -2,10 +2,12 @@ package ru.practicum.event.service;
 
 
 
+import ru.practicum.dto.event.ConfirmedRequestsUpdateDto;
 import ru.practicum.dto.event.EventFullDto;
 import ru.practicum.dto.event.UpdateEventAdminRequest;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.model.EventState;
+import ru.practicum.event.pagination.CursorSlice;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,7 +17,14 @@ public interface AdminEventService {
     List<EventFullDto> findEventByParams(List<Long> userIds, List<EventState> states, List<Long> categoryIds,
                                          LocalDateTime rangeStart, LocalDateTime rangeEnd, Long from, Long size);
 
+    // То же, что findEventByParams, но страница начинается после позиции cursor (пустая строка - первая страница)
+    CursorSlice<EventFullDto> findEventByParamsAfter(List<Long> userIds, List<EventState> states, List<Long> categoryIds,
+                                                     LocalDateTime rangeStart, LocalDateTime rangeEnd, String cursor, Long size);
+
     EventFullDto updateEvent(Long eventId, UpdateEventAdminRequest updateEventAdminRequest);
 
     Event saveEventFull(Event event);
+
+    // Идемпотентное применение изменений счетчиков, уже проверенных по лимиту в request-service
+    void applyConfirmedRequestsUpdates(List<ConfirmedRequestsUpdateDto> updates);
 }
@@ -1,19 +1,24 @@
 package ru.practicum.event.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import ru.practicum.category.repository.CategoryRepository;
+import ru.practicum.dto.event.ConfirmedRequestsUpdateDto;
 import ru.practicum.dto.event.EventFullDto;
 import ru.practicum.dto.event.StateAction;
 import ru.practicum.dto.event.UpdateEventAdminRequest;
 import ru.practicum.event.mapper.EventMapper;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.model.EventState;
+import ru.practicum.event.pagination.CursorSlice;
+import ru.practicum.event.pagination.EventCursor;
+import ru.practicum.event.pagination.EventOrder;
+import ru.practicum.event.repository.EventCounterRepository;
 import ru.practicum.event.repository.EventRepository;
 import ru.practicum.exception.BadRequestException;
 import ru.practicum.exception.NotFoundException;
@@ -32,6 +37,7 @@ public class AdminEventServiceImpl implements AdminEventService {
     private static final Integer HOURS_BEFORE_EVENT_START = 1;
 
     private final EventRepository eventRepository;
+    private final EventCounterRepository eventCounterRepository;
     private final CategoryRepository categoryRepository;
     private final EventMapper eventMapper;
 
@@ -40,11 +46,27 @@ public class AdminEventServiceImpl implements AdminEventService {
                                                 LocalDateTime rangeStart, LocalDateTime rangeEnd, Long from, Long size) {
 
         Pageable pageable = PageRequest.of(from.intValue(), size.intValue());
-        Page<Event> events = eventRepository.findByParams(userIds, states, categoryIds, rangeStart, rangeEnd, pageable);
+        Slice<Event> events = eventRepository.findByParams(userIds, states, categoryIds, rangeStart, rangeEnd, pageable);
 
         return eventMapper.toEventFullDto(events.toList());
     }
 
+    @Override
+    public CursorSlice<EventFullDto> findEventByParamsAfter(List<Long> userIds, List<EventState> states, List<Long> categoryIds,
+                                                            LocalDateTime rangeStart, LocalDateTime rangeEnd, String cursor, Long size) {
+
+        EventCursor after = EventCursor.parse(cursor, EventOrder.ID_DESC);
+        Slice<Event> events = eventRepository.findByParamsBefore(userIds, states, categoryIds, rangeStart, rangeEnd,
+                after != null ? after.id() : null, PageRequest.of(0, size.intValue()));
+
+        String nextCursor = null;
+        if (events.hasNext()) {
+            Event last = events.getContent().get(events.getNumberOfElements() - 1);
+            nextCursor = EventCursor.of(EventOrder.ID_DESC, null, last.getId()).encode();
+        }
+        return new CursorSlice<>(eventMapper.toEventFullDto(events.toList()), nextCursor);
+    }
+
     @Transactional
     @Override
     public EventFullDto updateEvent(Long eventId, UpdateEventAdminRequest updateEventAdminRequest) {
@@ -92,6 +114,12 @@ public class AdminEventServiceImpl implements AdminEventService {
         return eventRepository.save(event);
     }
 
+    @Override
+    @Transactional
+    public void applyConfirmedRequestsUpdates(List<ConfirmedRequestsUpdateDto> updates) {
+        eventCounterRepository.applyUpdates(updates);
+    }
+
     private Event checkEventExist(Long id) {
         Optional<Event> maybeEvent = eventRepository.findById(id);
         if (maybeEvent.isPresent()) {
@@ -0,0 +1,33 @@
+package ru.practicum.event.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.event.config.ConfirmedRequestsUpdateProperties;
+import ru.practicum.event.repository.EventCounterRepository;
+
+import java.time.LocalDateTime;
+
+// Удаление ключей примененных изменений confirmed_requests старше retention: повторы приходят в пределах минут
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConfirmedRequestsUpdatePurger {
+
+    private final ConfirmedRequestsUpdateProperties properties;
+    private final EventCounterRepository eventCounterRepository;
+
+    @Scheduled(fixedDelayString = "${event.confirmed-requests-updates.purge-interval:PT1H}")
+    public void purge() {
+        try {
+            int deleted = eventCounterRepository.purgeUpdatesAppliedBefore(LocalDateTime.now().minus(properties.getRetention()));
+            if (deleted > 0) {
+                log.info("Удалено {} устаревших ключей изменений счетчика подтвержденных заявок", deleted);
+            }
+        } catch (DataAccessException e) {
+            log.error("Ошибка при удалении устаревших ключей изменений счетчика подтвержденных заявок", e);
+        }
+    }
+}
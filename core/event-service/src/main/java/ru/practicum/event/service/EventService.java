@@ -21,7 +21,6 @@ import ru.practicum.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -40,10 +39,7 @@ public class EventService {
         int page = from / size;
         PageRequest pageRequest = PageRequest.of(page, size);
 
-        return eventRepository.findAllByInitiatorId(userId, pageRequest)
-                .stream()
-                .map(eventMapper::toEventShortDto)
-                .collect(Collectors.toList());
+        return eventMapper.toEventShortDto(eventRepository.findAllByInitiatorId(userId, pageRequest).getContent());
     }
 
     @Transactional
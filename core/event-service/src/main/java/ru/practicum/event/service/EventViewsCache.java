@@ -0,0 +1,81 @@
+package ru.practicum.event.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.event.config.EventViewsCacheProperties;
+import ru.practicum.ewm.EventViewsDto;
+import ru.practicum.ewm.StatsClient;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Кэш просмотров событий (по уникальным IP) с коротким сроком жизни.
+ * Одновременные промахи по одному событию ожидают один и тот же запрос к сервису статистики,
+ * а промахи списка событий загружаются одним пакетным запросом GET /views/events.
+ * Отдается значение сервиса статистики как есть: оно может отставать на ttl и задержку отложенной записи посещений,
+ * зато не завышается - по одному IP нельзя понять, учтен ли посетитель уже как уникальный.
+ */
+@Slf4j
+@Component
+public class EventViewsCache {
+
+    private final StatsClient statsClient;
+    private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncLoadingCache<Long, Long> cache;
+
+    public EventViewsCache(StatsClient statsClient, EventViewsCacheProperties properties) {
+        this.statsClient = statsClient;
+        // загрузка идет в отдельном виртуальном потоке вне вычисления Caffeine, промахнувшиеся запросы ждут ее результат;
+        // при загрузке в вызывающем потоке HTTP-вызов выполнялся бы под блокировкой ячейки хэш-таблицы
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .maximumSize(properties.getMaximumSize())
+                .executor(loader)
+                .buildAsync(new CacheLoader<>() {
+                    @Override
+                    public Long load(Long eventId) {
+                        return loadAll(Set.of(eventId)).get(eventId);
+                    }
+
+                    @Override
+                    public Map<Long, Long> loadAll(Set<? extends Long> eventIds) {
+                        return loadViews(eventIds);
+                    }
+                });
+    }
+
+    public long getViews(long eventId) {
+        return cache.get(eventId).join();
+    }
+
+    public Map<Long, Long> getViews(Collection<Long> eventIds) {
+        return cache.getAll(eventIds).join();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    // События без просмотров отсутствуют в ответе сервиса статистики и кэшируются с нулем
+    private Map<Long, Long> loadViews(Set<? extends Long> eventIds) {
+        Map<Long, EventViewsDto> views = statsClient.getEventViews(List.copyOf(eventIds));
+        Map<Long, Long> result = new HashMap<>();
+        for (Long eventId : eventIds) {
+            EventViewsDto eventViews = views.get(eventId);
+            result.put(eventId, eventViews != null ? eventViews.getUniqueHits() : 0L);
+        }
+        log.debug("Загружены просмотры {} событий из сервиса статистики", eventIds.size());
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package ru.practicum.event.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.EventViewChangesDto;
+import ru.practicum.ewm.EventViewsDto;
+import ru.practicum.ewm.StatsClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Фоновая синхронизация events.views с итогами просмотров в сервисе статистики.
+ * Забирает итоги, изменившиеся после сохраненной в stats_sync_state отметки, и применяет их пакетным UPDATE
+ * в одной транзакции с новой отметкой, поэтому публичные GET-запросы в таблицу events не пишут.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventViewsReconciler {
+
+    private static final String SYNC_NAME = "event_views";
+    private static final int BATCH_SIZE = 500;
+
+    private static final String SELECT_WATERMARK_SQL = """
+            SELECT watermark FROM stats_sync_state WHERE name = ?
+            """;
+
+    private static final String UPSERT_WATERMARK_SQL = """
+            INSERT INTO stats_sync_state (name, watermark)
+            VALUES (?, ?)
+            ON CONFLICT (name) DO UPDATE SET watermark = EXCLUDED.watermark
+            """;
+
+    private static final String UPDATE_VIEWS_SQL = """
+            UPDATE events SET views = ?
+            WHERE id = ? AND views <> ?
+            """;
+
+    private final StatsClient statsClient;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${event.views-sync.interval:PT10S}")
+    public void sync() {
+        try {
+            long after = jdbcTemplate.queryForList(SELECT_WATERMARK_SQL, Long.class, SYNC_NAME).stream()
+                    .findFirst()
+                    .orElse(0L);
+            EventViewChangesDto changes = statsClient.getEventViewChanges(after);
+            if (changes.getWatermark() < after) {
+                // отметка сервиса статистики меньше сохраненной только после пересоздания его БД: синхронизируем все заново
+                log.warn("Отметка сервиса статистики {} меньше сохраненной {}, полная синхронизация просмотров",
+                        changes.getWatermark(), after);
+                changes = statsClient.getEventViewChanges(0);
+            }
+            apply(changes);
+        } catch (Exception e) {
+            log.warn("Не удалось синхронизировать просмотры событий: {}", e.getMessage());
+        }
+    }
+
+    private void apply(EventViewChangesDto changes) {
+        // строки обновляются в порядке id, чтобы параллельные экземпляры сервиса не блокировали друг друга взаимно
+        List<Map.Entry<Long, EventViewsDto>> views = new ArrayList<>(changes.getViews().entrySet());
+        views.sort(Map.Entry.comparingByKey());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPDATE_VIEWS_SQL, views, BATCH_SIZE, (ps, entry) -> {
+                ps.setLong(1, entry.getValue().getUniqueHits());
+                ps.setLong(2, entry.getKey());
+                ps.setLong(3, entry.getValue().getUniqueHits());
+            });
+            jdbcTemplate.update(UPSERT_WATERMARK_SQL, SYNC_NAME, changes.getWatermark());
+        });
+        if (!views.isEmpty()) {
+            log.info("Синхронизированы просмотры {} событий, новая отметка {}", views.size(), changes.getWatermark());
+        }
+    }
+}
@@ -5,6 +5,7 @@ import ru.practicum.dto.event.EventFullDto;
 import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.dto.event.EventSort;
 import ru.practicum.event.model.Event;
+import ru.practicum.event.pagination.CursorSlice;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,5 +25,17 @@ public interface PublicEventService {
                                   int size,
                                   HttpServletRequest request);
 
+    // То же, что getEvents, но страница начинается после позиции cursor (пустая строка - первая страница)
+    CursorSlice<EventShortDto> getEventsAfter(String text,
+                                              List<Long> categories,
+                                              Boolean paid,
+                                              LocalDateTime rangeStart,
+                                              LocalDateTime rangeEnd,
+                                              Boolean onlyAvailable,
+                                              EventSort sort,
+                                              String cursor,
+                                              int size,
+                                              HttpServletRequest request);
+
     Optional<Event> getEventFullById(long id);
 }
@@ -1,14 +1,11 @@
 package ru.practicum.event.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.dto.event.EventFullDto;
@@ -17,16 +14,21 @@ import ru.practicum.dto.event.EventSort;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.model.EventState;
 import ru.practicum.event.repository.EventRepository;
+import ru.practicum.event.repository.EventSearchRepositoryImpl;
+import ru.practicum.event.repository.PublicEventFilter;
+import ru.practicum.event.pagination.CursorSlice;
+import ru.practicum.event.pagination.EventCursor;
+import ru.practicum.ewm.BufferedStatsClient;
 import ru.practicum.ewm.EndpointHitInputDto;
 import ru.practicum.event.mapper.EventMapper;
-import ru.practicum.ewm.StatsClient;
-import ru.practicum.ewm.ViewStatsOutputDto;
 import ru.practicum.exception.BadRequestException;
 import ru.practicum.exception.NotFoundException;
+import ru.practicum.user.model.User;
 
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,26 +39,38 @@ public class PublicEventServiceImpl implements PublicEventService {
     private static final String APP_NAME = "ewm-main";
 
     private final EventRepository eventRepository;
-    private final StatsClient statsClient;
+    private final EventViewsCache eventViewsCache;
+    private final BufferedStatsClient bufferedStatsClient;
     private final EventMapper eventMapper;
-    private final ObjectMapper objectMapper;
+    private final RemoteLookups remoteLookups;
 
     @Override
     @Transactional(readOnly = true)
     public EventFullDto getEventById(long id, HttpServletRequest request) {
-        Event event = eventRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Event с id " + id + " не найден"));
+        try (RemoteLookups.Scope scope = remoteLookups.open()) {
+            // просмотры зависят только от id и запрашиваются одновременно с чтением события из базы
+            Supplier<Long> views = scope.fork("просмотров события", () -> eventViewsCache.getViews(id), null);
 
-        if (event.getState() != EventState.PUBLISHED) {
-            throw new NotFoundException("Event с id " + id + " еще не опубликован");
-        }
+            Event event = eventRepository.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Event с id " + id + " не найден"));
+
+            if (event.getState() != EventState.PUBLISHED) {
+                throw new NotFoundException("Event с id " + id + " еще не опубликован");
+            }
 
-        addHit(request);
-        updateEventViews(event);
+            addHit(request);
 
-        EventFullDto eventFullDto = eventMapper.toEventFullDto(event);
-        log.info("Получен eventFullDto с ID = {}", eventFullDto.getId());
-        return eventFullDto;
+            Supplier<Map<Long, User>> users = scope.fork("инициатора события",
+                    () -> eventMapper.loadInitiators(List.of(event)), Map.of());
+
+            EventFullDto eventFullDto = eventMapper.toEventFullDto(event, users.get().get(event.getInitiatorId()));
+            Long actualViews = views.get();
+            if (actualViews != null) {
+                eventFullDto.setViews(actualViews);
+            }
+            log.info("Получен eventFullDto с ID = {}", eventFullDto.getId());
+            return eventFullDto;
+        }
     }
 
     @Override
@@ -72,18 +86,44 @@ public class PublicEventServiceImpl implements PublicEventService {
                                          HttpServletRequest request) {
 
         validateTimeRange(rangeStart, rangeEnd);
-        PageRequest page = PageRequest.of(from, size);
-        Page<Event> pageEvents = getEventsFromRepository(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, page);
-        List<Event> events = pageEvents.getContent();
+        try (RemoteLookups.Scope scope = remoteLookups.open()) {
+            // посещение записывается одновременно с запросом к базе
+            Supplier<Void> hit = scope.fork("записи посещения", () -> addHit(request), null);
 
-        addHit(request);
-        List<EventShortDto> eventShortDtos = processEventsToShortDtos(events);
+            PageRequest page = PageRequest.of(from, size);
+            Slice<Event> pageEvents = eventRepository.findPublished(
+                    toFilter(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort), page);
+            List<EventShortDto> dtos = processEventsToShortDtos(scope, pageEvents.getContent());
 
-        if (sort != null) {
-            sortEventDtos(eventShortDtos, sort);
+            hit.get();
+            return dtos;
         }
+    }
+
+    @Override
+    public CursorSlice<EventShortDto> getEventsAfter(String text,
+                                                     List<Long> categories,
+                                                     Boolean paid,
+                                                     LocalDateTime rangeStart,
+                                                     LocalDateTime rangeEnd,
+                                                     Boolean onlyAvailable,
+                                                     EventSort sort,
+                                                     String cursor,
+                                                     int size,
+                                                     HttpServletRequest request) {
 
-        return eventShortDtos;
+        validateTimeRange(rangeStart, rangeEnd);
+        PublicEventFilter filter = toFilter(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort);
+        EventCursor after = EventCursor.parse(cursor, EventSearchRepositoryImpl.orderOf(filter));
+        try (RemoteLookups.Scope scope = remoteLookups.open()) {
+            Supplier<Void> hit = scope.fork("записи посещения", () -> addHit(request), null);
+
+            CursorSlice<Event> slice = eventRepository.findPublishedAfter(filter, after, size);
+            CursorSlice<EventShortDto> dtos = slice.map(events -> processEventsToShortDtos(scope, events));
+
+            hit.get();
+            return dtos;
+        }
     }
 
     @Override
@@ -101,66 +141,45 @@ public class PublicEventServiceImpl implements PublicEventService {
         }
     }
 
-    private Page<Event> getEventsFromRepository(String text,
-                                                List<Long> categories,
-                                                Boolean paid,
-                                                LocalDateTime rangeStart,
-                                                LocalDateTime rangeEnd,
-                                                Boolean onlyAvailable,
-                                                PageRequest page) {
+    private PublicEventFilter toFilter(String text,
+                                       List<Long> categories,
+                                       Boolean paid,
+                                       LocalDateTime rangeStart,
+                                       LocalDateTime rangeEnd,
+                                       Boolean onlyAvailable,
+                                       EventSort sort) {
         LocalDateTime start = rangeStart != null ? rangeStart : LocalDateTime.now();
         LocalDateTime end = rangeEnd != null ? rangeEnd : LocalDateTime.now().plusYears(1);
 
-        return onlyAvailable
-                ? eventRepository.findAllByPublicFiltersAndOnlyAvailable(text, categories, paid, start, end, page)
-                : eventRepository.findAllByPublicFilters(text, categories, paid, start, end, page);
+        return new PublicEventFilter(text, categories, paid, start, end, Boolean.TRUE.equals(onlyAvailable), sort);
     }
 
-    private List<EventShortDto> processEventsToShortDtos(List<Event> events) {
+    private List<EventShortDto> processEventsToShortDtos(RemoteLookups.Scope scope, List<Event> events) {
         if (events.isEmpty()) {
             return Collections.emptyList();
         }
 
-        Map<Long, Long> viewsByEventId = getViewsForEvents(events);
-
-        List<EventShortDto> dtos = events.stream()
-                .map(event -> {
-                    Long views = viewsByEventId.getOrDefault(event.getId(), event.getViews() != null ? event.getViews() : 0L);
-                    event.setViews(views);
-                    return eventMapper.toEventShortDto(event);
-                })
-                .collect(Collectors.toList());
-
-        updateEventsViewsInBatch(events, viewsByEventId);
+        // просмотры и инициаторы запрашиваются у разных сервисов одновременно
+        Supplier<Map<Long, Long>> views = scope.fork("просмотров событий",
+                () -> getViewsForEvents(events), Map.of());
+        Supplier<Map<Long, User>> users = scope.fork("инициаторов событий",
+                () -> eventMapper.loadInitiators(events), Map.of());
+        Map<Long, Long> viewsByEventId = views.get();
 
+        // events.views обновляет EventViewsReconciler, здесь актуальное значение берется из кэша только для ответа
+        List<EventShortDto> dtos = eventMapper.toEventShortDto(events, users.get());
+        dtos.forEach(dto -> dto.setViews(viewsByEventId.getOrDefault(dto.getId(), dto.getViews())));
         return dtos;
     }
 
+    // Просмотры считаются по уникальным IP за все время
     private Map<Long, Long> getViewsForEvents(List<Event> events) {
-        List<String> uris = events.stream()
-                .map(event -> "/events/" + event.getId())
+        List<Long> eventIds = events.stream()
+                .map(Event::getId)
                 .collect(Collectors.toList());
 
         try {
-            ResponseEntity<Object> response = statsClient.getStats(
-                    LocalDateTime.now().minusYears(999),
-                    LocalDateTime.now().plusYears(1),
-                    uris,
-                    true
-            );
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                List<ViewStatsOutputDto> stats = objectMapper.convertValue(
-                        response.getBody(),
-                        new TypeReference<List<ViewStatsOutputDto>>() {}
-                );
-
-                return stats.stream()
-                        .collect(Collectors.toMap(
-                                stat -> Long.parseLong(stat.getUri().substring("/events/".length())),
-                                ViewStatsOutputDto::getHits
-                        ));
-            }
+            return eventViewsCache.getViews(eventIds);
         } catch (Exception e) {
             log.error("Ошибка при получении статистики просмотров", e);
         }
@@ -168,64 +187,15 @@ public class PublicEventServiceImpl implements PublicEventService {
         return Collections.emptyMap();
     }
 
-    @Transactional
-    protected void updateEventsViewsInBatch(List<Event> events, Map<Long, Long> viewsByEventId) {
-        List<Event> eventsToUpdate = events.stream()
-                .filter(event -> viewsByEventId.containsKey(event.getId()))
-                .peek(event -> event.setViews(viewsByEventId.get(event.getId())))
-                .collect(Collectors.toList());
-
-        if (!eventsToUpdate.isEmpty()) {
-            eventRepository.saveAll(eventsToUpdate);
-        }
-    }
-
-    private void updateEventViews(Event event) {
-        try {
-            String uri = "/events/" + event.getId();
-            ResponseEntity<Object> response = statsClient.getStats(
-                    LocalDateTime.now().minusYears(999),
-                    LocalDateTime.now().plusYears(1),
-                    List.of(uri),
-                    true
-            );
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                List<ViewStatsOutputDto> stats = objectMapper.convertValue(
-                        response.getBody(),
-                        new TypeReference<List<ViewStatsOutputDto>>() {}
-                );
-
-                if (!stats.isEmpty()) {
-                    long hits = stats.get(0).getHits();
-                    event.setViews(hits);
-                    eventRepository.save(event);
-                }
-            }
-        } catch (Exception e) {
-            log.error("Ошибка при обновлении просмотров для события {}", event.getId(), e);
-        }
-    }
-
-    private void sortEventDtos(List<EventShortDto> dtos, EventSort sort) {
-        if (sort == EventSort.EVENT_DATE) {
-            dtos.sort(Comparator.comparing(EventShortDto::getEventDate));
-        } else {
-            dtos.sort(Comparator.comparing(EventShortDto::getViews, Comparator.reverseOrder()));
-        }
-    }
-
-    private void addHit(HttpServletRequest request) {
+    private Void addHit(HttpServletRequest request) {
         EndpointHitInputDto hit = new EndpointHitInputDto();
         hit.setApp(APP_NAME);
         hit.setUri(request.getRequestURI());
         hit.setIp(request.getRemoteAddr());
         hit.setTimestamp(LocalDateTime.now());
 
-        try {
-            statsClient.addHit(hit);
-        } catch (Exception e) {
-            log.error("Ошибка при отправке статистики просмотра", e);
-        }
+        // посещение попадает в буфер и уходит в сервис статистики пачкой через POST /hits
+        bufferedStatsClient.addHit(hit);
+        return null;
     }
 }
@@ -0,0 +1,87 @@
+package ru.practicum.event.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.event.config.RemoteLookupProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Параллельное выполнение независимых обращений к другим сервисам (статистика, user-service) на виртуальных потоках.
+ * Время ответа определяется самым долгим обращением, а не их суммой.
+ * Обращения одного запроса выполняются в общей области {@link Scope} с единым сроком timeout, отсчитываемым
+ * от открытия области: каждое ожидание результата получает только остаток этого срока.
+ * По истечении срока или при ошибке вместо результата используется fallback, а запрос продолжает обрабатываться.
+ * Незавершенные обращения прерываются при закрытии области, в том числе когда запрос завершился исключением,
+ * поэтому ни одно обращение не переживает запрос, в рамках которого запущено.
+ */
+@Slf4j
+@Component
+public class RemoteLookups {
+
+    private final RemoteLookupProperties properties;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public RemoteLookups(RemoteLookupProperties properties) {
+        this.properties = properties;
+    }
+
+    public Scope open() {
+        return new Scope(System.nanoTime() + properties.getTimeout().toNanos());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+
+    // Область используется одним потоком запроса, поэтому список запущенных обращений не синхронизируется
+    public final class Scope implements AutoCloseable {
+
+        private final long deadline;
+        private final List<Future<?>> forks = new ArrayList<>();
+
+        private Scope(long deadline) {
+            this.deadline = deadline;
+        }
+
+        public <T> Supplier<T> fork(String name, Supplier<T> lookup, T fallback) {
+            Future<T> future = executor.submit(lookup::get);
+            forks.add(future);
+            return () -> join(name, future, fallback);
+        }
+
+        @Override
+        public void close() {
+            forks.forEach(future -> future.cancel(true));
+        }
+
+        private <T> T join(String name, Future<T> future, T fallback) {
+            try {
+                return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.warn("Запрос {} не выполнен за {}, используется значение по умолчанию", name, properties.getTimeout());
+            } catch (ExecutionException e) {
+                log.warn("Ошибка при выполнении запроса {}, используется значение по умолчанию", name, e.getCause());
+            } catch (CancellationException e) {
+                log.warn("Запрос {} отменен, используется значение по умолчанию", name);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                log.warn("Ожидание запроса {} прервано, используется значение по умолчанию", name);
+            }
+            return fallback;
+        }
+    }
+}
@@ -53,3 +53,32 @@ CREATE TABLE IF NOT EXISTS event_comments
     updated_on   TIMESTAMP WITHOUT TIME ZONE,
     FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE
 );
+
+CREATE TABLE IF NOT EXISTS stats_sync_state
+(
+    name      VARCHAR PRIMARY KEY,
+    watermark BIGINT NOT NULL
+);
+
+
+-- Полнотекстовый поиск событий: вектор поддерживается БД при каждой вставке и изменении события
+ALTER TABLE events ADD COLUMN IF NOT EXISTS search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('russian', coalesce(annotation, '')), 'B') ||
+    setweight(to_tsvector('russian', coalesce(description, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS events_search_vector_idx ON events USING GIN (search_vector);
+
+-- Сортировки публичного списка событий (VIEWS и EVENT_DATE) в порядке индексов
+CREATE INDEX IF NOT EXISTS events_state_views_idx ON events (state, views DESC, id);
+CREATE INDEX IF NOT EXISTS events_state_event_date_idx ON events (state, event_date, id);
+
+-- Ключи изменений confirmed_requests, уже примененных по запросам request-service: повторная отправка не применяется дважды
+CREATE TABLE IF NOT EXISTS confirmed_requests_update
+(
+    update_key VARCHAR PRIMARY KEY,
+    applied    TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS confirmed_requests_update_applied_idx ON confirmed_requests_update (applied);
@@ -0,0 +1,80 @@
+package ru.practicum.event.pagination;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventCursorTest {
+
+    @Test
+    void encodedCursorIsParsedBack() {
+        LocalDateTime eventDate = LocalDateTime.of(2026, 5, 1, 18, 30, 15, 123_456_000);
+
+        assertRoundTrip(EventCursor.of(EventOrder.ID, null, 42));
+        assertRoundTrip(EventCursor.of(EventOrder.ID_DESC, null, 42));
+        assertRoundTrip(EventCursor.of(EventOrder.VIEWS, 1_000_000L, 42));
+        assertRoundTrip(EventCursor.of(EventOrder.EVENT_DATE, eventDate, 42));
+        assertRoundTrip(EventCursor.of(EventOrder.RANK, 0.1f, 42));
+    }
+
+    @Test
+    void keyKeepsColumnTypeAndPrecision() {
+        LocalDateTime eventDate = LocalDateTime.of(2026, 5, 1, 18, 30, 15, 123_456_000);
+        // ts_rank возвращает real: значение должно вернуться тем же float, иначе граница страницы сместится
+        float rank = 0.0607927f;
+
+        assertThat(parse(EventCursor.of(EventOrder.RANK, rank, 1), EventOrder.RANK).typedKey()).isEqualTo(rank);
+        assertThat(parse(EventCursor.of(EventOrder.VIEWS, 7L, 1), EventOrder.VIEWS).typedKey()).isEqualTo(7L);
+        assertThat(parse(EventCursor.of(EventOrder.EVENT_DATE, eventDate, 1), EventOrder.EVENT_DATE).typedKey())
+                .isEqualTo(Timestamp.valueOf(eventDate));
+        assertThat(parse(EventCursor.of(EventOrder.ID, null, 1), EventOrder.ID).typedKey()).isNull();
+    }
+
+    @Test
+    void emptyCursorMeansFirstPage() {
+        assertThat(EventCursor.parse(null, EventOrder.ID)).isNull();
+        assertThat(EventCursor.parse("", EventOrder.ID)).isNull();
+        assertThat(EventCursor.parse("  ", EventOrder.ID)).isNull();
+    }
+
+    @Test
+    void cursorOfAnotherOrderIsRejected() {
+        String token = EventCursor.of(EventOrder.VIEWS, 5L, 1).encode();
+
+        assertThatThrownBy(() -> EventCursor.parse(token, EventOrder.EVENT_DATE))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> EventCursor.parse("не base64", EventOrder.ID))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> EventCursor.parse(raw("VIEWS|5"), EventOrder.VIEWS))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> EventCursor.parse(raw("VIEWS|много|5"), EventOrder.VIEWS))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> EventCursor.parse(raw("EVENT_DATE|вчера|5"), EventOrder.EVENT_DATE))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> EventCursor.parse(raw("UNKNOWN||5"), EventOrder.ID))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private static void assertRoundTrip(EventCursor cursor) {
+        assertThat(parse(cursor, cursor.order())).isEqualTo(cursor);
+    }
+
+    private static EventCursor parse(EventCursor cursor, EventOrder order) {
+        return EventCursor.parse(cursor.encode(), order);
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
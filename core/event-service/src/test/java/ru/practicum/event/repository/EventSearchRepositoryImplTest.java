@@ -0,0 +1,146 @@
+package ru.practicum.event.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.dto.event.EventSort;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.pagination.CursorSlice;
+import ru.practicum.event.pagination.EventCursor;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Сшивка страниц выдачи по курсору: БД заменена выборкой из списка в памяти с тем же порядком и условием
+ * "строго после курсора", что и в SQL, поэтому проверяется, что курсор следующей страницы указывает на последнее
+ * выданное событие, а не на лишнюю строку, и что значение ключа переживает кодирование без потери точности.
+ */
+class EventSearchRepositoryImplTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final List<Event> events = new ArrayList<>();
+
+    private EventSearchRepositoryImpl repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // много совпадающих значений ключа, чтобы граница страниц приходилась на середину группы равных
+        for (long id = 1; id <= 47; id++) {
+            Event event = new Event();
+            event.setId(id);
+            event.setViews(id % 4 * 10);
+            event.setEventDate(START.plusHours(id % 5).plusNanos(id % 2 * 500_000_000));
+            events.add(event);
+        }
+
+        repository = new EventSearchRepositoryImpl(jdbcTemplate);
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+
+        TypedQuery<Event> query = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(Event.class))).thenReturn(query);
+        when(query.setParameter(eq("ids"), any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(1);
+            when(query.getResultStream()).thenAnswer(ignored -> events.stream().filter(e -> ids.contains(e.getId())));
+            return query;
+        });
+    }
+
+    @Test
+    void viewsPagesCoverAllEventsOnce() {
+        Comparator<Event> order = Comparator.comparing(Event::getViews).reversed().thenComparing(Event::getId);
+        emulateQuery(order, (event, key, id) -> event.getViews() < (Long) key
+                || (event.getViews().equals(key) && event.getId() > id));
+
+        assertPagesCoverAllEvents(EventSort.VIEWS, order);
+    }
+
+    @Test
+    void eventDatePagesCoverAllEventsOnce() {
+        Comparator<Event> order = Comparator.comparing(Event::getEventDate).thenComparing(Event::getId);
+        emulateQuery(order, (event, key, id) -> {
+            LocalDateTime eventDate = ((Timestamp) key).toLocalDateTime();
+            return event.getEventDate().isAfter(eventDate) || (event.getEventDate().equals(eventDate) && event.getId() > id);
+        });
+
+        assertPagesCoverAllEvents(EventSort.EVENT_DATE, order);
+    }
+
+    private void assertPagesCoverAllEvents(EventSort sort, Comparator<Event> order) {
+        PublicEventFilter filter = new PublicEventFilter(null, null, null, START, START.plusDays(1), false, sort);
+        List<Long> expected = events.stream().sorted(order).map(Event::getId).toList();
+
+        for (int size : new int[]{1, 5, 10, 47, 100}) {
+            List<Long> walked = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                CursorSlice<Event> page = repository.findPublishedAfter(filter,
+                        EventCursor.parse(cursor, EventSearchRepositoryImpl.orderOf(filter)), size);
+                assertThat(page.content()).hasSizeLessThanOrEqualTo(size);
+                page.content().forEach(event -> walked.add(event.getId()));
+                cursor = page.nextCursor();
+                pages++;
+            } while (cursor != null);
+
+            assertThat(walked).as("страницы по %d", size).containsExactlyElementsOf(expected);
+            assertThat(pages).isEqualTo(Math.max(1, (expected.size() + size - 1) / size));
+        }
+    }
+
+    // Выборка id и ключа сортировки так, как ее возвращает SQL: строго после курсора, в порядке order, limit строк
+    @SuppressWarnings("unchecked")
+    private void emulateQuery(Comparator<Event> order, AfterCursor afterCursor) {
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class))).thenAnswer(invocation -> {
+            SqlParameterSource params = invocation.getArgument(1);
+            RowMapper<Object> rowMapper = invocation.getArgument(2);
+            int limit = (Integer) params.getValue("limit");
+            Predicate<Event> after = event -> true;
+            if (params.hasValue("afterId")) {
+                Object key = params.getValue("afterKey");
+                long id = (Long) params.getValue("afterId");
+                after = event -> afterCursor.test(event, key, id);
+            }
+
+            List<Object> rows = new ArrayList<>();
+            for (Event event : events.stream().sorted(order).filter(after).limit(limit).toList()) {
+                rows.add(rowMapper.mapRow(resultSet(event), rows.size()));
+            }
+            return rows;
+        });
+    }
+
+    private static ResultSet resultSet(Event event) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(event.getId());
+        when(rs.getLong("sort_key")).thenReturn(event.getViews());
+        when(rs.getTimestamp("sort_key")).thenReturn(Timestamp.valueOf(event.getEventDate()));
+        return rs;
+    }
+
+    private interface AfterCursor {
+        boolean test(Event event, Object afterKey, long afterId);
+    }
+}
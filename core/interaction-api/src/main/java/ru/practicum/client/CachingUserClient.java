@@ -0,0 +1,138 @@
+package ru.practicum.client;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.practicum.user.model.User;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Кэширующая обертка над Feign-клиентом user-service.
+ * Ограниченный по размеру кэш Caffeine (вытеснение W-TinyLFU) хранит как найденных пользователей (срок ttl),
+ * так и отметки об отсутствии пользователя (срок negative-ttl), а промахи списка загружаются одним запросом /list.
+ * Ответ 404 user-service тоже кэшируется как отсутствие пользователя.
+ * Загрузка выполняется асинхронно в отдельных виртуальных потоках, а не внутри вычисления Caffeine:
+ * HTTP-вызов не удерживает блокировку ячейки хэш-таблицы, поэтому не закрепляет виртуальный поток за несущим
+ * и не задерживает обращения к другим ключам той же ячейки; промахи по одному ключу ждут одну загрузку.
+ * При удалении пользователя user-service рассылает инвалидацию на DELETE /internal/api/user-cache/{userId}.
+ * Метрики кэша (попадания, промахи, вытеснения) публикуются как cache.* с тегом cache=user-client.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(prefix = "user.client.cache", name = "enabled", havingValue = "true")
+public class CachingUserClient implements UserClient {
+
+    private final UserClient delegate;
+    private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncLoadingCache<Long, Optional<User>> cache;
+
+    public CachingUserClient(@Qualifier("userServiceClientFeignClient") UserClient delegate,
+                             UserClientCacheProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<Long, Optional<User>>() {
+                    @Override
+                    public long expireAfterCreate(Long userId, Optional<User> user, long currentTime) {
+                        return (user.isPresent() ? properties.getTtl() : properties.getNegativeTtl()).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long userId, Optional<User> user, long currentTime, long currentDuration) {
+                        return expireAfterCreate(userId, user, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long userId, Optional<User> user, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .executor(loader)
+                .buildAsync(new CacheLoader<>() {
+                    @Override
+                    public Optional<User> load(Long userId) {
+                        try {
+                            return delegate.getUserById(userId);
+                        } catch (FeignException.NotFound e) {
+                            return Optional.empty();
+                        }
+                    }
+
+                    @Override
+                    public Map<Long, Optional<User>> loadAll(Set<? extends Long> userIds) {
+                        return loadUsers(userIds);
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "user-client");
+        log.info("Включен кэш пользователей: ttl = {}, negativeTtl = {}, maximumSize = {}",
+                properties.getTtl(), properties.getNegativeTtl(), properties.getMaximumSize());
+    }
+
+    @Override
+    public Optional<User> getUserById(Long userId) throws FeignException {
+        return join(cache.get(userId));
+    }
+
+    // Пользователи возвращаются в порядке ids, не найденные пропускаются, как и в ответе user-service
+    @Override
+    public List<User> getUsersWithIds(List<Long> ids) throws FeignException {
+        return join(cache.getAll(ids)).values().stream()
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    public void evict(Long userId) {
+        cache.synchronous().invalidate(userId);
+        log.debug("Пользователь {} удален из кэша", userId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    // Ошибку загрузки (например, FeignException) пробрасываем без обертки CompletionException, как при прямом вызове
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Map<Long, Optional<User>> loadUsers(Set<? extends Long> userIds) {
+        Map<Long, Optional<User>> result = new HashMap<>();
+        for (Long userId : userIds) {
+            result.put(userId, Optional.empty());
+        }
+        for (User user : delegate.getUsersWithIds(List.copyOf(userIds))) {
+            result.put(user.getId(), Optional.of(user));
+        }
+        return result;
+    }
+}
@@ -6,8 +6,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import ru.practicum.dto.event.ConfirmedRequestsUpdateDto;
 import ru.practicum.event.model.Event;
 
+import java.util.List;
 import java.util.Optional;
 
 @FeignClient(name = "event-service", path = "/internal/api/events", contextId = "eventServiceClient")
@@ -17,4 +19,9 @@ public interface EventClient {
 
     @PostMapping("/admin")
     Event save(@RequestBody Event event) throws FeignException;
+
+    // Идемпотентное применение изменений счетчика, уже проверенных по лимиту отправителем (request-service);
+    // изменения с ранее примененными ключами пропускаются, поэтому отправку можно безопасно повторять
+    @PostMapping("/confirmed-requests/updates")
+    void applyConfirmedRequestsUpdates(@RequestBody List<ConfirmedRequestsUpdateDto> updates) throws FeignException;
 }
@@ -0,0 +1,29 @@
+package ru.practicum.client;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+// Инвалидация кэша пользователей, вызывается user-service для каждого экземпляра сервиса при удалении пользователя
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/internal/api/user-cache")
+@ConditionalOnProperty(prefix = "user.client.cache", name = "enabled", havingValue = "true")
+public class UserCacheController {
+
+    private final CachingUserClient cachingUserClient;
+
+    @DeleteMapping("/{userId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void evict(@PathVariable Long userId) {
+        log.info("Поступил запрос Delete /internal/api/user-cache/{} на удаление пользователя из кэша", userId);
+        cachingUserClient.evict(userId);
+    }
+}
@@ -10,7 +10,8 @@ import ru.practicum.user.model.User;
 import java.util.List;
 import java.util.Optional;
 
-@FeignClient(name = "user-service", path = "/internal/api/users", contextId = "userServiceClient")
+// primary = false: при включенном кэше основной реализацией UserClient становится CachingUserClient
+@FeignClient(name = "user-service", path = "/internal/api/users", contextId = "userServiceClient", primary = false)
 public interface UserClient {
     @GetMapping("/{userId}")
     Optional<User> getUserById(@PathVariable Long userId) throws FeignException;
@@ -0,0 +1,23 @@
+package ru.practicum.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user.client.cache")
+public class UserClientCacheProperties {
+
+    private boolean enabled = false; // Кэшировать ли ответы user-service в сервисе-клиенте
+
+    private Duration ttl = Duration.ofMinutes(5); // Срок жизни найденного пользователя
+
+    private Duration negativeTtl = Duration.ofSeconds(30); // Срок жизни отметки "пользователь не найден"
+
+    private long maximumSize = 10000; // Максимальное количество пользователей в кэше
+}
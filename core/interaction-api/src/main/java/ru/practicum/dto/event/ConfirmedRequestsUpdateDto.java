@@ -0,0 +1,15 @@
+package ru.practicum.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfirmedRequestsUpdateDto {
+
+    private String key; // Ключ идемпотентности: изменение с уже примененным ключом повторно не применяется
+    private Long eventId; // Событие
+    private Long delta; // Приращение числа подтвержденных заявок
+}
@@ -69,6 +69,13 @@ public class ErrorHandler {
         return new ErrorResponse(violations);
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleTooManyRequestsException(TooManyRequestsException e) {
+        final List<Violation> violations = List.of(new Violation("TOO MANY REQUESTS", e.getMessage()));
+        return new ErrorResponse(violations);
+    }
+
     @ExceptionHandler
     public ResponseEntity<ErrorResponse> handleFeignException(FeignException ex) {
         HttpStatus status = HttpStatus.resolve(ex.status()) != null ?
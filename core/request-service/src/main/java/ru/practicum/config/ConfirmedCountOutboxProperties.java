@@ -0,0 +1,18 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "request.confirmed-count-outbox")
+public class ConfirmedCountOutboxProperties {
+
+    private int batchSize = 500; // Сколько изменений счетчиков отправляется в event-service одним запросом
+    private Duration retryInterval = Duration.ofSeconds(5); // Период повторной отправки изменений, не дошедших до event-service
+}
@@ -0,0 +1,18 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "request.admission")
+public class RequestAdmissionProperties {
+
+    private int stripes = 256; // Количество блокировок, между которыми распределяются события (округляется до степени двойки)
+    private Duration lockTimeout = Duration.ofSeconds(3); // Сколько заявка ждет своей очереди, прежде чем получить отказ 429
+}
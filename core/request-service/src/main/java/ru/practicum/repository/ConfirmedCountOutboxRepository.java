@@ -0,0 +1,59 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.dto.event.ConfirmedRequestsUpdateDto;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Исходящие изменения счетчиков подтвержденных заявок для event-service.
+ * Изменение записывается в транзакции изменения заявок и удаляется только после того, как event-service его применил;
+ * ключ изменения позволяет event-service отбросить повторную отправку.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ConfirmedCountOutboxRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO confirmed_count_outbox (event_id, delta, created)
+            VALUES (:eventId, :delta, now())
+            """;
+
+    private static final String FIND_BATCH_SQL = """
+            SELECT update_key, event_id, delta
+            FROM confirmed_count_outbox
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+    private static final String DELETE_SQL = """
+            DELETE FROM confirmed_count_outbox WHERE update_key IN (:keys)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void add(long eventId, long delta) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("delta", delta);
+        jdbcTemplate.update(INSERT_SQL, params);
+    }
+
+    // Самые старые изменения в порядке записи
+    public List<ConfirmedRequestsUpdateDto> findBatch(int limit) {
+        return jdbcTemplate.query(FIND_BATCH_SQL, new MapSqlParameterSource("limit", limit),
+                (rs, rowNum) -> new ConfirmedRequestsUpdateDto(
+                        rs.getString("update_key"), rs.getLong("event_id"), rs.getLong("delta")));
+    }
+
+    public void delete(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(DELETE_SQL, new MapSqlParameterSource("keys", keys));
+    }
+}
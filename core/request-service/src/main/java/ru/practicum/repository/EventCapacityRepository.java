@@ -0,0 +1,80 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Счетчики подтвержденных заявок и резервирование мест событий в event_capacity.
+ * Строка заводится при первой заявке на событие, дальше подтверждения и отмены меняют ее
+ * условными UPDATE в транзакции изменения заявок, поэтому число подтвержденных заявок читается
+ * по первичному ключу без подсчета строк requests.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventCapacityRepository {
+
+    // лимит события мог измениться (а у строк, заполненных при обновлении схемы, он еще не известен),
+    // поэтому он обновляется при каждой регистрации; новая строка начинается с уже подтвержденных заявок события
+    private static final String REGISTER_SQL = """
+            INSERT INTO event_capacity (event_id, participant_limit, confirmed)
+            VALUES (:eventId, :participantLimit,
+                    (SELECT COUNT(*) FROM requests WHERE event_id = :eventId AND status = 'CONFIRMED'))
+            ON CONFLICT (event_id) DO UPDATE SET participant_limit = EXCLUDED.participant_limit
+            WHERE event_capacity.participant_limit <> EXCLUDED.participant_limit
+            """;
+
+    private static final String RESERVE_SQL = """
+            UPDATE event_capacity SET confirmed = confirmed + :count
+            WHERE event_id = :eventId
+            AND (participant_limit = 0 OR confirmed + :count <= participant_limit)
+            """;
+
+    private static final String RELEASE_SQL = """
+            UPDATE event_capacity SET confirmed = GREATEST(confirmed - :count, 0)
+            WHERE event_id = :eventId
+            """;
+
+    private static final String FREE_SEATS_SQL = """
+            SELECT CASE WHEN participant_limit = 0 THEN :unlimited ELSE GREATEST(participant_limit - confirmed, 0) END
+            FROM event_capacity
+            WHERE event_id = :eventId
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Регистрация вызывается до любого резервирования мест, поэтому резервирование всегда видит актуальный лимит
+    public void register(long eventId, int participantLimit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("participantLimit", participantLimit);
+        jdbcTemplate.update(REGISTER_SQL, params);
+    }
+
+    // Занять count мест; false, если свободных мест не хватает или событие не зарегистрировано
+    public boolean reserve(long eventId, long count) {
+        return jdbcTemplate.update(RESERVE_SQL, countParams(eventId, count)) > 0;
+    }
+
+    public void release(long eventId, long count) {
+        jdbcTemplate.update(RELEASE_SQL, countParams(eventId, count));
+    }
+
+    // Свободные места события (Long.MAX_VALUE без ограничения); с lock строка блокируется до конца транзакции
+    public long findFreeSeats(long eventId, boolean lock) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("unlimited", Long.MAX_VALUE);
+        List<Long> seats = jdbcTemplate.queryForList(lock ? FREE_SEATS_SQL + " FOR UPDATE" : FREE_SEATS_SQL, params, Long.class);
+        return seats.isEmpty() ? 0 : seats.get(0);
+    }
+
+    private MapSqlParameterSource countParams(long eventId, long count) {
+        return new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("count", count);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.repository;
+
+import ru.practicum.request.model.ParticipationRequest;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface RequestJdbcRepository {
+
+    // Перевод заявок PENDING события одним запросом: при confirm первые по дате создания capacity заявок подтверждаются,
+    // остальные отклоняются; без confirm отклоняются все. Возвращаются измененные заявки
+    List<ParticipationRequest> confirmOrReject(Long eventId, List<Long> requestIds, boolean confirm, long capacity);
+
+    // Вставка заявки, если у пользователя еще нет заявки на это событие; пусто при повторной заявке
+    Optional<ParticipationRequest> insertIfAbsent(ParticipationRequest request);
+}
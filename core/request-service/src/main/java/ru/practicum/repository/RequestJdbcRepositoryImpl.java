@@ -0,0 +1,80 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.request.model.ParticipationRequest;
+import ru.practicum.request.model.RequestStatus;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class RequestJdbcRepositoryImpl implements RequestJdbcRepository {
+
+    // заявки блокируются до ранжирования (FOR UPDATE несовместим с оконными функциями),
+    // поэтому параллельная модерация тех же заявок дождется фиксации и не увидит их в статусе PENDING
+    private static final String CONFIRM_OR_REJECT_SQL = """
+            WITH locked AS (
+                SELECT id, created
+                FROM requests
+                WHERE event_id = :eventId AND id IN (:requestIds) AND status = 'PENDING'
+                ORDER BY id
+                FOR UPDATE
+            ), ranked AS (
+                SELECT id, row_number() OVER (ORDER BY created, id) AS rn
+                FROM locked
+            )
+            UPDATE requests r
+            SET status = CASE WHEN :confirm AND ranked.rn <= :capacity THEN 'CONFIRMED' ELSE 'REJECTED' END
+            FROM ranked
+            WHERE r.id = ranked.id
+            RETURNING r.id, r.created, r.event_id, r.requester_id, r.status
+            """;
+
+    // конфликт по уникальному индексу (requester_id, event_id) не прерывает транзакцию, в отличие от исключения при save
+    private static final String INSERT_IF_ABSENT_SQL = """
+            INSERT INTO requests (created, event_id, requester_id, status)
+            VALUES (:created, :eventId, :requesterId, :status)
+            ON CONFLICT (requester_id, event_id) DO NOTHING
+            RETURNING id, created, event_id, requester_id, status
+            """;
+
+    private static final RowMapper<ParticipationRequest> REQUEST_ROW_MAPPER = (rs, rowNum) -> {
+        ParticipationRequest request = new ParticipationRequest();
+        request.setId(rs.getLong("id"));
+        request.setCreated(rs.getTimestamp("created").toLocalDateTime());
+        request.setEventId(rs.getLong("event_id"));
+        request.setRequesterId(rs.getLong("requester_id"));
+        request.setStatus(RequestStatus.valueOf(rs.getString("status")));
+        return request;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<ParticipationRequest> confirmOrReject(Long eventId, List<Long> requestIds, boolean confirm, long capacity) {
+        if (requestIds.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("requestIds", requestIds)
+                .addValue("confirm", confirm)
+                .addValue("capacity", capacity);
+        return jdbcTemplate.query(CONFIRM_OR_REJECT_SQL, params, REQUEST_ROW_MAPPER);
+    }
+
+    @Override
+    public Optional<ParticipationRequest> insertIfAbsent(ParticipationRequest request) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("created", Timestamp.valueOf(request.getCreated()))
+                .addValue("eventId", request.getEventId())
+                .addValue("requesterId", request.getRequesterId())
+                .addValue("status", request.getStatus().name());
+        return jdbcTemplate.query(INSERT_IF_ABSENT_SQL, params, REQUEST_ROW_MAPPER).stream().findFirst();
+    }
+}
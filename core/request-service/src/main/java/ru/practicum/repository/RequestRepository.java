@@ -1,15 +1,13 @@
 package ru.practicum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import ru.practicum.request.model.ParticipationRequest;
 
 
 import java.util.List;
 import java.util.Optional;
 
-public interface RequestRepository extends JpaRepository<ParticipationRequest, Long> {
+public interface RequestRepository extends JpaRepository<ParticipationRequest, Long>, RequestJdbcRepository {
 
     // Все заявки конкретного пользователя
     List<ParticipationRequest> findAllByRequesterId(Long requesterId);
@@ -17,19 +15,5 @@ public interface RequestRepository extends JpaRepository<ParticipationRequest, L
     // Все заявки на конкретное событие
     List<ParticipationRequest> findAllByEventId(Long eventId);
 
-    // Метод для получения количества заявок с определенным eventId и статусом CONFIRMED
-
-    @Query("""
-            SELECT COUNT(pr)
-            FROM ParticipationRequest pr
-            WHERE pr.eventId = :eventId AND pr.status = 'CONFIRMED'
-            """)
-    Long countConfirmedRequestsByEventId(@Param("eventId") Long eventId);
-
-    boolean existsByRequesterIdAndEventId(Long requesterId, Long eventId);
-
     Optional<ParticipationRequest> findByIdAndRequesterId(Long requestId, Long requesterId);
-
-    @Query("SELECT e.views FROM Event e WHERE e.id = :eventId")
-    Long getViewsForEvent(@Param("eventId") Long eventId);
 }
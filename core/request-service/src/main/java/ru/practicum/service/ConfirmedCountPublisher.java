@@ -0,0 +1,102 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.client.EventClient;
+import ru.practicum.config.ConfirmedCountOutboxProperties;
+import ru.practicum.dto.event.ConfirmedRequestsUpdateDto;
+import ru.practicum.repository.ConfirmedCountOutboxRepository;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Отправка изменений счетчиков подтвержденных заявок из confirmed_count_outbox в event-service.
+ * Отправка запускается после фиксации транзакции, записавшей изменение, в отдельном потоке, поэтому HTTP-вызов
+ * не выполняется под блокировкой очереди заявок и в открытой транзакции. Не дошедшие изменения остаются в таблице
+ * и отправляются повторно по расписанию; event-service применяет каждый ключ не больше одного раза.
+ */
+@Slf4j
+@Component
+public class ConfirmedCountPublisher {
+
+    private final ConfirmedCountOutboxRepository outboxRepository;
+    private final EventClient eventClient;
+    private final ConfirmedCountOutboxProperties properties;
+    // один поток отправки: изменения экземпляра уходят в порядке записи
+    private final ExecutorService sender = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean sendQueued = new AtomicBoolean();
+
+    public ConfirmedCountPublisher(ConfirmedCountOutboxRepository outboxRepository,
+                                   EventClient eventClient,
+                                   ConfirmedCountOutboxProperties properties) {
+        this.outboxRepository = outboxRepository;
+        this.eventClient = eventClient;
+        this.properties = properties;
+    }
+
+    // Запись изменения в текущей транзакции; отправка начнется после ее фиксации
+    public void publish(long eventId, long delta) {
+        outboxRepository.add(eventId, delta);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestSend();
+                }
+            });
+        } else {
+            requestSend();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${request.confirmed-count-outbox.retry-interval:PT5S}")
+    public void retry() {
+        requestSend();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+    }
+
+    // Повторные запросы, пришедшие до начала отправки, объединяются в одну
+    private void requestSend() {
+        if (!sendQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(() -> {
+                sendQueued.set(false);
+                send();
+            });
+        } catch (RejectedExecutionException e) {
+            sendQueued.set(false);
+        }
+    }
+
+    private void send() {
+        try {
+            List<ConfirmedRequestsUpdateDto> updates;
+            do {
+                updates = outboxRepository.findBatch(properties.getBatchSize());
+                if (updates.isEmpty()) {
+                    return;
+                }
+                eventClient.applyConfirmedRequestsUpdates(updates);
+                outboxRepository.delete(updates.stream().map(ConfirmedRequestsUpdateDto::getKey).toList());
+                log.debug("В event-service отправлено {} изменений счетчиков подтвержденных заявок", updates.size());
+            } while (updates.size() == properties.getBatchSize());
+        } catch (Exception e) {
+            log.warn("Не удалось отправить изменения счетчиков подтвержденных заявок, повтор через {}: {}",
+                    properties.getRetryInterval(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.RequestAdmissionProperties;
+import ru.practicum.event.model.Event;
+import ru.practicum.exception.ParticipantLimitReachedException;
+import ru.practicum.exception.TooManyRequestsException;
+import ru.practicum.exception.ValidationException;
+import ru.practicum.repository.EventCapacityRepository;
+import ru.practicum.repository.RequestRepository;
+import ru.practicum.request.model.ParticipationRequest;
+import ru.practicum.request.model.RequestStatus;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Прием заявок на участие при высокой конкуренции за места события.
+ * Заявки на одно событие выстраиваются в очередь на одной из striped-блокировок в памяти, поэтому к БД
+ * одновременно идет не больше одной транзакции на событие, а заявки на разные события почти не мешают друг другу.
+ * Гарантию дает БД: уникальный индекс (requester_id, event_id) с вставкой через ON CONFLICT
+ * и условное резервирование места в строке event_capacity в той же транзакции, что и вставка заявки.
+ * Используется ReentrantLock, а не synchronized, чтобы ожидание не закрепляло виртуальный поток за несущим.
+ * Счетчик event-service меняется через исходящую таблицу после фиксации транзакции, вне блокировки и транзакции.
+ */
+@Slf4j
+@Component
+public class ParticipationAdmission {
+
+    private final RequestRepository requestRepository;
+    private final EventCapacityRepository capacityRepository;
+    private final ConfirmedCountPublisher confirmedCountPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final RequestAdmissionProperties properties;
+    private final ReentrantLock[] stripes;
+
+    public ParticipationAdmission(RequestRepository requestRepository,
+                                  EventCapacityRepository capacityRepository,
+                                  ConfirmedCountPublisher confirmedCountPublisher,
+                                  TransactionTemplate transactionTemplate,
+                                  RequestAdmissionProperties properties) {
+        this.requestRepository = requestRepository;
+        this.capacityRepository = capacityRepository;
+        this.confirmedCountPublisher = confirmedCountPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        int size = properties.getStripes() <= 1 ? 1 : Integer.highestOneBit(properties.getStripes() - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // Создание заявки пользователя на опубликованное событие; блокировка удерживается до фиксации транзакции
+    public ParticipationRequest admit(Event event, Long userId) {
+        ReentrantLock lock = stripe(event.getId());
+        acquire(lock, event.getId());
+        try {
+            return transactionTemplate.execute(status -> admitLocked(event, userId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Свободные места события; строка резервирования блокируется до конца текущей транзакции
+    public long lockFreeSeats(Event event) {
+        capacityRepository.register(event.getId(), event.getParticipantLimit());
+        return capacityRepository.findFreeSeats(event.getId(), true);
+    }
+
+    // Изменение числа подтвержденных заявок: лимит проверяется локальным резервированием, а изменение для event-service
+    // записывается в той же транзакции и отправляется после ее фиксации; при нехватке мест исключение откатывает транзакцию
+    public void addConfirmed(Long eventId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (delta > 0 && !capacityRepository.reserve(eventId, delta)) {
+            throw new ParticipantLimitReachedException("Лимит участников уже достигнут");
+        }
+        if (delta < 0) {
+            capacityRepository.release(eventId, -delta);
+        }
+        confirmedCountPublisher.publish(eventId, delta);
+    }
+
+    private ParticipationRequest admitLocked(Event event, Long userId) {
+        capacityRepository.register(event.getId(), event.getParticipantLimit());
+
+        ParticipationRequest request = new ParticipationRequest();
+        request.setCreated(LocalDateTime.now());
+        request.setEventId(event.getId());
+        request.setRequesterId(userId);
+        // Если для события отключена премодерация или лимит заявок равен 0, заявка сразу подтверждается
+        boolean autoConfirm = !event.isRequestModeration() || event.getParticipantLimit() == 0;
+        request.setStatus(autoConfirm ? RequestStatus.CONFIRMED : RequestStatus.PENDING);
+
+        ParticipationRequest savedRequest = requestRepository.insertIfAbsent(request)
+                .orElseThrow(() -> new ValidationException("Нельзя повторно подавать заявку на то же событие."));
+
+        if (autoConfirm) {
+            addConfirmed(event.getId(), 1);
+        } else if (capacityRepository.findFreeSeats(event.getId(), false) == 0) {
+            throw new ParticipantLimitReachedException("Лимит участников уже достигнут");
+        }
+        return savedRequest;
+    }
+
+    private void acquire(ReentrantLock lock, Long eventId) {
+        try {
+            if (lock.tryLock(properties.getLockTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("Заявка на событие {} не дождалась очереди за {}", eventId, properties.getLockTimeout());
+        throw new TooManyRequestsException("Слишком много одновременных заявок на событие, повторите позже");
+    }
+
+    private ReentrantLock stripe(Long eventId) {
+        int hash = Long.hashCode(eventId);
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+}
@@ -16,13 +16,14 @@ import ru.practicum.exception.NotFoundException;
 import ru.practicum.exception.ParticipantLimitReachedException;
 import ru.practicum.exception.ValidationException;
 import ru.practicum.request.model.RequestStatus;
+import ru.practicum.repository.EventCapacityRepository;
 import ru.practicum.repository.RequestRepository;
 import ru.practicum.request.mapper.RequestMapper;
 import ru.practicum.request.model.ParticipationRequest;
 import ru.practicum.user.model.User;
 
 
-import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,9 +33,14 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class RequestService {
 
+    private static final Comparator<ParticipationRequest> REQUEST_ORDER =
+            Comparator.comparing(ParticipationRequest::getCreated).thenComparing(ParticipationRequest::getId);
+
     private final RequestRepository requestRepository;
     private final EventClient eventClient;
     private final UserClient userClient;
+    private final ParticipationAdmission admission;
+    private final EventCapacityRepository capacityRepository;
 
 
     public List<ParticipationRequestDto> getRequestsOfUser(Long userId) {
@@ -45,14 +51,11 @@ public class RequestService {
     }
 
 
-    @Transactional
+    // Без общей транзакции: удаленные проверки идут до очереди на событие, транзакцию открывает ParticipationAdmission
     public ParticipationRequestDto addRequest(Long userId, Long eventId) {
-        User user = getUser(userId);
+        getUser(userId);
         Event event = getEventOrThrow(eventId);
 
-        System.out.println(event.toString());
-
-
         if (event.getInitiatorId().equals(userId)) {
             throw new ValidationException("Инициатор события не может добавить запрос на участие в своём событии.");
         }
@@ -60,32 +63,8 @@ public class RequestService {
         if (event.getState() != EventState.PUBLISHED) {
             throw new ValidationException("Нельзя участвовать в неопубликованном событии.");
         }
-        if (requestRepository.existsByRequesterIdAndEventId(userId, eventId)) {
-            throw new ValidationException("Нельзя повторно подавать заявку на то же событие.");
-        }
 
-        if (event.getParticipantLimit() != 0 && event.getConfirmedRequests() >= event.getParticipantLimit()) {
-            throw new ParticipantLimitReachedException("Лимит участников уже достигнут");
-        }
-
-        ParticipationRequest request = new ParticipationRequest();
-        request.setCreated(LocalDateTime.now());
-        request.setEventId(eventId);
-        request.setRequesterId(userId);
-/* Условие !event.isRequestModeration()- если для события не требуется премодерация заявок на участие, то заявка должна автоматически переходить в статус CONFIRMED.
-"Если для события отключена пре-модерация запросов на участие, то запрос должен автоматически перейти в состояние подтвержденного".
-Условие event.getParticipantLimit() == 0 - если нет ограничения на количество участников (лимит равен 0), заявка тоже должна автоматически подтверждаться.
-"Если для события лимит заявок равен 0, то подтверждение заявок не требуется".
-Статусы заявок - если хотя бы одно из условий выполняется, заявка переходит в статус CONFIRMED. Если оба
-условия не выполняются (например, премодерация включена и есть лимит участников), заявка остается в статусе PENDING.*/
-        boolean autoConfirm = !event.isRequestModeration() || event.getParticipantLimit() == 0;
-        request.setStatus(autoConfirm ? RequestStatus.CONFIRMED : RequestStatus.PENDING);
-        ParticipationRequest savedRequest = requestRepository.save(request);
-        //если заявка CONFIRMED, нужно увеличить счётчик confirmedRequests
-        if (RequestStatus.CONFIRMED.equals(savedRequest.getStatus())) {
-            updateConfirmedRequests(event.getId());
-        }
-        return RequestMapper.toParticipationRequestDto(savedRequest);
+        return RequestMapper.toParticipationRequestDto(admission.admit(event, userId));
     }
 
     @Transactional
@@ -98,7 +77,7 @@ public class RequestService {
         ParticipationRequest updatedRequest = requestRepository.save(request);
 
         if (wasConfirmed) {
-            updateConfirmedRequests(request.getEventId());
+            admission.addConfirmed(request.getEventId(), -1);
         }
 
 
@@ -124,53 +103,35 @@ public class RequestService {
             throw new NotFoundException("Событие не принадлежит пользователю id=" + userId);
         }
 
-        List<Long> requestIds = statusUpdateRequest.getRequestIds();
+        List<Long> requestIds = statusUpdateRequest.getRequestIds().stream().distinct().toList();
+        boolean confirm = statusUpdateRequest.getStatus() == RequestStatus.CONFIRMED;
 
-        List<ParticipationRequest> requests = requestRepository.findAllById(requestIds);
-
-        for (ParticipationRequest request : requests) {
-
-            if (request.getStatus() != RequestStatus.PENDING) {
-                throw new ValidationException("Можно менять статус только у заявок в состоянии PENDING");
-            }
-            //проверяем лимит
-            if (statusUpdateRequest.getStatus() == RequestStatus.CONFIRMED) {
-                if (event.getParticipantLimit() != 0 && event.getConfirmedRequests() >= event.getParticipantLimit()) {
-                    throw new ParticipantLimitReachedException("Лимит участников уже достигнут");
-                }
-
-                request.setStatus(RequestStatus.CONFIRMED);
-
-            } else {
+        // свободных мест у события; при лимите 0 подтверждать можно без ограничений
+        long capacity = admission.lockFreeSeats(event);
+        if (confirm && capacity == 0) {
+            throw new ParticipantLimitReachedException("Лимит участников уже достигнут");
+        }
 
-                request.setStatus(statusUpdateRequest.getStatus());
-            }
+        // одним запросом подтверждаются первые по дате создания заявки в пределах свободных мест, остальные отклоняются
+        List<ParticipationRequest> requests = requestRepository.confirmOrReject(eventId, requestIds, confirm, capacity);
+        if (requests.size() != requestIds.size()) {
+            throw new ValidationException("Можно менять статус только у заявок события в состоянии PENDING");
         }
+        admission.addConfirmed(eventId, requests.stream().filter(r -> r.getStatus() == RequestStatus.CONFIRMED).count());
 
-        requestRepository.saveAll(requests);
-        updateConfirmedRequests(eventId);
         List<ParticipationRequestDto> confirmedRequests = requests.stream()
                 .filter(r -> r.getStatus() == RequestStatus.CONFIRMED)
+                .sorted(REQUEST_ORDER)
                 .map(RequestMapper::toParticipationRequestDto).collect(Collectors.toList());
 
         List<ParticipationRequestDto> rejectedRequests = requests.stream()
                 .filter(r -> r.getStatus() == RequestStatus.REJECTED)
+                .sorted(REQUEST_ORDER)
                 .map(RequestMapper::toParticipationRequestDto).collect(Collectors.toList());
 
         return new EventRequestStatusUpdateResult(confirmedRequests, rejectedRequests);
     }
 
-    @Transactional
-    public void updateConfirmedRequests(Long eventId) {
-        Long confirmedRequests = requestRepository.countConfirmedRequestsByEventId(eventId);
-        confirmedRequests = (confirmedRequests == null) ? 0 : confirmedRequests;
-
-        Event event = eventClient.getEventFullById(eventId).orElseThrow(() -> new NotFoundException("Событие с id=" + eventId + " не найдено"));
-        event.setConfirmedRequests(confirmedRequests);
-        System.out.println("____________________" + event.toString());
-        eventClient.save(event);
-    }
-
     private User getUser(Long userId) {
         return userClient.getUserById(userId)
             .orElseThrow(() -> {
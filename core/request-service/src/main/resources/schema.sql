@@ -6,3 +6,46 @@ CREATE TABLE IF NOT EXISTS requests
     requester_id BIGINT    NOT NULL,
     status       VARCHAR   NOT NULL
 );
+
+-- повторные заявки пользователя на событие, появившиеся до уникального индекса, удаляются:
+-- остается подтвержденная заявка, а среди равных по статусу - самая ранняя
+DELETE FROM requests r
+USING requests d
+WHERE r.requester_id = d.requester_id
+  AND r.event_id = d.event_id
+  AND ((d.status = 'CONFIRMED') > (r.status = 'CONFIRMED')
+    OR ((d.status = 'CONFIRMED') = (r.status = 'CONFIRMED') AND d.id < r.id))
+  AND NOT EXISTS (SELECT 1 FROM pg_indexes WHERE indexname = 'requests_requester_event_uq');
+
+-- один пользователь - одна заявка на событие; вставка заявки идет через ON CONFLICT по этому индексу
+CREATE UNIQUE INDEX IF NOT EXISTS requests_requester_event_uq ON requests (requester_id, event_id);
+
+-- счетчик подтвержденных заявок события, изменяется в одной транзакции со статусами заявок;
+-- подтверждения учитываются условным UPDATE, поэтому параллельные заявки не превышают participant_limit (0 - без ограничения)
+CREATE TABLE IF NOT EXISTS event_capacity
+(
+    event_id          BIGINT PRIMARY KEY,
+    participant_limit INTEGER NOT NULL,
+    confirmed         BIGINT  NOT NULL CHECK (confirmed >= 0)
+);
+
+-- заполнение счетчиков по уже подтвержденным заявкам для событий без строки; существующие строки не меняются,
+-- поэтому повторный запуск безопасен. Лимит здесь не известен и записывается как 0, но register обновляет его
+-- до первого резервирования мест, а до этого строка используется только для чтения числа подтвержденных заявок
+INSERT INTO event_capacity (event_id, participant_limit, confirmed)
+SELECT event_id, 0, COUNT(*)
+FROM requests
+WHERE status = 'CONFIRMED'
+GROUP BY event_id
+ON CONFLICT (event_id) DO NOTHING;
+
+-- изменения счетчика подтвержденных заявок event-service, записанные в транзакции изменения заявок;
+-- строка удаляется после того, как event-service применил изменение с ее ключом
+CREATE TABLE IF NOT EXISTS confirmed_count_outbox
+(
+    id         BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    update_key VARCHAR   NOT NULL UNIQUE DEFAULT gen_random_uuid()::text,
+    event_id   BIGINT    NOT NULL,
+    delta      BIGINT    NOT NULL,
+    created    TIMESTAMP NOT NULL
+);
@@ -0,0 +1,161 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.client.EventClient;
+import ru.practicum.config.ConfirmedCountOutboxProperties;
+import ru.practicum.dto.event.ConfirmedRequestsUpdateDto;
+import ru.practicum.repository.ConfirmedCountOutboxRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ConfirmedCountPublisherTest {
+
+    private final InMemoryOutbox outbox = new InMemoryOutbox();
+    private final EventClient eventClient = mock(EventClient.class);
+    // состояние event-service: примененные ключи и счетчики событий
+    private final Set<String> appliedKeys = new HashSet<>();
+    private final Map<Long, Long> confirmedRequests = new HashMap<>();
+    private final AtomicInteger deliveries = new AtomicInteger();
+    private final AtomicBoolean loseResponse = new AtomicBoolean();
+
+    private ConfirmedCountPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            List<ConfirmedRequestsUpdateDto> updates = invocation.getArgument(0);
+            synchronized (appliedKeys) {
+                for (ConfirmedRequestsUpdateDto update : updates) {
+                    if (appliedKeys.add(update.getKey())) {
+                        confirmedRequests.merge(update.getEventId(), update.getDelta(), Long::sum);
+                    }
+                }
+            }
+            deliveries.incrementAndGet();
+            if (loseResponse.getAndSet(false)) {
+                throw new IllegalStateException("ответ event-service потерян");
+            }
+            return null;
+        }).when(eventClient).applyConfirmedRequestsUpdates(anyList());
+
+        ConfirmedCountOutboxProperties properties = new ConfirmedCountOutboxProperties();
+        properties.setBatchSize(2);
+        publisher = new ConfirmedCountPublisher(outbox, eventClient, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void publishedChangesAreDeliveredInBatchesAndRemoved() throws InterruptedException {
+        publisher.publish(1L, 1);
+        publisher.publish(1L, 1);
+        publisher.publish(2L, 3);
+        publisher.publish(1L, -1);
+        publisher.publish(2L, 1);
+
+        awaitTrue(() -> outbox.size() == 0);
+        assertThat(confirmedRequests()).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 1L, 2L, 4L));
+    }
+
+    @Test
+    void redeliveryAfterLostResponseIsAppliedOnce() throws InterruptedException {
+        loseResponse.set(true);
+
+        publisher.publish(1L, 2);
+        awaitTrue(() -> deliveries.get() == 1);
+        // изменение применено, но ответ потерян: строка остается в исходящей таблице до повтора
+        assertThat(outbox.size()).isEqualTo(1);
+
+        publisher.retry();
+        awaitTrue(() -> outbox.size() == 0);
+
+        assertThat(deliveries.get()).isEqualTo(2);
+        assertThat(confirmedRequests()).containsExactlyEntriesOf(Map.of(1L, 2L));
+    }
+
+    @Test
+    void changeIsSentOnlyAfterCommit() throws InterruptedException {
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            publisher.publish(1L, 1);
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Thread.sleep(100);
+        verify(eventClient, never()).applyConfirmedRequestsUpdates(anyList());
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        awaitTrue(() -> outbox.size() == 0);
+        assertThat(confirmedRequests()).containsExactlyEntriesOf(Map.of(1L, 1L));
+    }
+
+    private Map<Long, Long> confirmedRequests() {
+        synchronized (appliedKeys) {
+            return Map.copyOf(confirmedRequests);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("условие не выполнено за 5 секунд").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    // Исходящая таблица в памяти: строки в порядке записи, ключ назначается при вставке
+    private static class InMemoryOutbox extends ConfirmedCountOutboxRepository {
+
+        private final Map<String, ConfirmedRequestsUpdateDto> rows = new LinkedHashMap<>();
+        private int nextKey;
+
+        InMemoryOutbox() {
+            super(null);
+        }
+
+        @Override
+        public synchronized void add(long eventId, long delta) {
+            String key = "key-" + nextKey++;
+            rows.put(key, new ConfirmedRequestsUpdateDto(key, eventId, delta));
+        }
+
+        @Override
+        public synchronized List<ConfirmedRequestsUpdateDto> findBatch(int limit) {
+            return rows.values().stream().limit(limit).toList();
+        }
+
+        @Override
+        public synchronized void delete(Collection<String> keys) {
+            keys.forEach(rows::remove);
+        }
+
+        synchronized int size() {
+            return rows.size();
+        }
+    }
+}
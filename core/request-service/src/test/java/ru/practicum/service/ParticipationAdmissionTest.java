@@ -0,0 +1,170 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.RequestAdmissionProperties;
+import ru.practicum.event.model.Event;
+import ru.practicum.exception.ParticipantLimitReachedException;
+import ru.practicum.exception.ValidationException;
+import ru.practicum.repository.EventCapacityRepository;
+import ru.practicum.repository.RequestRepository;
+import ru.practicum.request.model.ParticipationRequest;
+import ru.practicum.request.model.RequestStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ParticipationAdmissionTest {
+
+    private static final long EVENT_ID = 1L;
+
+    private final RequestRepository requestRepository = mock(RequestRepository.class);
+    private final ConfirmedCountPublisher confirmedCountPublisher = mock(ConfirmedCountPublisher.class);
+    private final RacyCapacityRepository capacityRepository = new RacyCapacityRepository();
+    private final Set<Long> requesters = ConcurrentHashMap.newKeySet();
+    private final AtomicLong ids = new AtomicLong();
+
+    private ParticipationAdmission admission;
+
+    @BeforeEach
+    void setUp() {
+        when(requestRepository.insertIfAbsent(any())).thenAnswer(invocation -> {
+            ParticipationRequest request = invocation.getArgument(0);
+            if (!requesters.add(request.getRequesterId())) {
+                return Optional.empty();
+            }
+            request.setId(ids.incrementAndGet());
+            return Optional.of(request);
+        });
+        admission = new ParticipationAdmission(requestRepository, capacityRepository, confirmedCountPublisher,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new RequestAdmissionProperties());
+    }
+
+    @Test
+    void parallelRequestsConfirmExactlyLimit() throws Exception {
+        int limit = 10;
+        int requests = 200;
+        Event event = event(limit, false);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<ParticipationRequest>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long userId = 1; userId <= requests; userId++) {
+                long requester = userId;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return admission.admit(event, requester);
+                }));
+            }
+            start.countDown();
+        }
+
+        int confirmed = 0;
+        int rejected = 0;
+        for (Future<ParticipationRequest> result : results) {
+            try {
+                assertThat(result.get().getStatus()).isEqualTo(RequestStatus.CONFIRMED);
+                confirmed++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(ParticipantLimitReachedException.class);
+                rejected++;
+            }
+        }
+
+        assertThat(confirmed).isEqualTo(limit);
+        assertThat(rejected).isEqualTo(requests - limit);
+        assertThat(capacityRepository.confirmed).isEqualTo(limit);
+        verify(confirmedCountPublisher, times(limit)).publish(EVENT_ID, 1);
+    }
+
+    @Test
+    void repeatedRequestIsRefused() {
+        Event event = event(5, true);
+
+        ParticipationRequest first = admission.admit(event, 7L);
+
+        assertThat(first.getStatus()).isEqualTo(RequestStatus.PENDING);
+        assertThatThrownBy(() -> admission.admit(event, 7L)).isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void pendingRequestIsRefusedWhenNoSeatsLeft() {
+        Event event = event(1, true);
+        capacityRepository.register(EVENT_ID, 1);
+        capacityRepository.reserve(EVENT_ID, 1);
+
+        assertThatThrownBy(() -> admission.admit(event, 7L)).isInstanceOf(ParticipantLimitReachedException.class);
+        verify(confirmedCountPublisher, times(0)).publish(eq(EVENT_ID), anyLong());
+    }
+
+    private static Event event(int participantLimit, boolean requestModeration) {
+        Event event = new Event();
+        event.setId(EVENT_ID);
+        event.setParticipantLimit(participantLimit);
+        event.setRequestModeration(requestModeration);
+        return event;
+    }
+
+    // Резервирование без атомарности (чтение, пауза, запись): лимит соблюдается, только если заявки события
+    // не выполняются одновременно, поэтому тест проверяет очередь на событие, а не гарантии БД
+    private static class RacyCapacityRepository extends EventCapacityRepository {
+
+        private volatile int participantLimit;
+        private volatile long confirmed;
+
+        RacyCapacityRepository() {
+            super(null);
+        }
+
+        @Override
+        public void register(long eventId, int participantLimit) {
+            this.participantLimit = participantLimit;
+        }
+
+        @Override
+        public boolean reserve(long eventId, long count) {
+            long current = confirmed;
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (participantLimit != 0 && current + count > participantLimit) {
+                return false;
+            }
+            confirmed = current + count;
+            return true;
+        }
+
+        @Override
+        public void release(long eventId, long count) {
+            confirmed = Math.max(confirmed - count, 0);
+        }
+
+        @Override
+        public long findFreeSeats(long eventId, boolean lock) {
+            return participantLimit == 0 ? Long.MAX_VALUE : Math.max(participantLimit - confirmed, 0);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user.cache-eviction")
+public class UserCacheEvictionProperties {
+
+    private List<String> services = List.of("event-service", "request-service"); // Сервисы с кэшем пользователей
+
+    private Duration timeout = Duration.ofSeconds(1); // Таймаут запроса инвалидации к одному экземпляру
+}
@@ -24,6 +24,7 @@ public class AdminUserService {
 
     private final UserRepository userRepository;
     private final EventClient eventClient;
+    private final UserCacheEvictionNotifier userCacheEvictionNotifier;
 
     public List<UserDto> getUsersByParams(List<Long> ids, Integer from, Integer size) {
         Pageable pageable = PageRequest.of(from, size);
@@ -40,6 +41,7 @@ public class AdminUserService {
     @Transactional
     public void deleteUserById(Long id) {
         userRepository.deleteById(id);
+        userCacheEvictionNotifier.userDeleted(id);
     }
 
     private void checkDuplicateUserByEmail(NewUserRequest user) {
@@ -0,0 +1,64 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import ru.practicum.config.UserCacheEvictionProperties;
+
+/**
+ * Рассылка инвалидации кэша пользователей (CachingUserClient) всем экземплярам сервисов-клиентов из Eureka.
+ * Ошибки доставки только логируются: устаревшая запись в кэше клиента в любом случае истечет через ttl.
+ */
+@Slf4j
+@Component
+public class UserCacheEvictionNotifier {
+
+    private final DiscoveryClient discoveryClient;
+    private final UserCacheEvictionProperties properties;
+    private final RestClient restClient;
+
+    public UserCacheEvictionNotifier(DiscoveryClient discoveryClient, UserCacheEvictionProperties properties) {
+        this.discoveryClient = discoveryClient;
+        this.properties = properties;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(properties.getTimeout());
+        requestFactory.setReadTimeout(properties.getTimeout());
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    // В транзакции рассылка выполняется после фиксации, чтобы клиенты не успели заново закэшировать пользователя
+    public void userDeleted(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        } else {
+            evict(userId);
+        }
+    }
+
+    private void evict(Long userId) {
+        for (String service : properties.getServices()) {
+            for (ServiceInstance instance : discoveryClient.getInstances(service)) {
+                try {
+                    restClient.delete()
+                            .uri(instance.getUri() + "/internal/api/user-cache/{userId}", userId)
+                            .retrieve()
+                            .toBodilessEntity();
+                } catch (RestClientException e) {
+                    log.warn("Не удалось удалить пользователя {} из кэша экземпляра {} сервиса {}: {}",
+                            userId, instance.getInstanceId(), service, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.practicum.ewm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Неблокирующая отправка посещений в сервис статистики.
+ * Вызовы StatsClient выполняются в отдельном ограниченном пуле потоков, поэтому медленный сервис статистики
+ * не увеличивает время ответа публичных эндпоинтов: при заполненной очереди отправка отбрасывается.
+ * Отправка ограничена сроком timeout с учетом ожидания в очереди и по его истечении считается неудачной:
+ * если вызов еще не начат, он снимается с очереди, а результат завершается RejectedExecutionException
+ * (посещения точно не отправлены); если вызов уже идет, поток прерывается, а результат завершается
+ * TimeoutException (посещения могли дойти, исход неизвестен).
+ */
+@Slf4j
+@Component
+public class AsyncStatsClient {
+
+    private final StatsClient statsClient;
+    private final AsyncStatsClientProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Counter timedOutCounter;
+
+    public AsyncStatsClient(StatsClient statsClient, AsyncStatsClientProperties properties, MeterRegistry meterRegistry) {
+        this.statsClient = statsClient;
+        this.properties = properties;
+        this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("stats.client.hits.pending", pending, AtomicInteger::get)
+                .description("Количество отправок посещений, ожидающих завершения")
+                .register(meterRegistry);
+        this.droppedCounter = meterRegistry.counter("stats.client.hits.dropped");
+        this.failedCounter = meterRegistry.counter("stats.client.hits.failed");
+        this.timedOutCounter = meterRegistry.counter("stats.client.hits.timed-out");
+    }
+
+    public CompletableFuture<Void> addHit(EndpointHitInputDto hitDto) {
+        return submit(() -> statsClient.addHit(hitDto), 1);
+    }
+
+    public CompletableFuture<Void> addHits(List<EndpointHitInputDto> hitDtos) {
+        return submit(() -> statsClient.addHits(hitDtos), hitDtos.size());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Не дождались отправки {} посещений в сервис статистики", pending.get());
+            executor.shutdownNow();
+        }
+    }
+
+    private CompletableFuture<Void> submit(Runnable call, int hits) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        // вызов начинает либо поток пула, либо истечение срока отменяет его: кто первый, тот и определяет исход
+        AtomicBoolean started = new AtomicBoolean();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    call.run();
+                    result.complete(null);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            droppedCounter.increment(hits);
+            log.warn("Очередь отправки статистики переполнена, отброшено посещений: {}", hits);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        pending.addAndGet(hits);
+        long timeoutMillis = properties.getTimeout().toMillis();
+        CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS, Runnable::run).execute(() -> {
+            if (started.compareAndSet(false, true)) {
+                task.cancel(false);
+                result.completeExceptionally(new RejectedExecutionException(
+                        "Отправка не начата за " + properties.getTimeout()));
+            } else if (result.completeExceptionally(new TimeoutException(
+                    "Отправка не завершена за " + properties.getTimeout()))) {
+                task.cancel(true);
+            }
+        });
+        return result.whenComplete((ignored, e) -> {
+            pending.addAndGet(-hits);
+            if (e instanceof TimeoutException) {
+                timedOutCounter.increment(hits);
+                failedCounter.increment(hits);
+                log.warn("Отправка {} посещений в сервис статистики прервана: {}", hits, e.getMessage());
+            } else if (e != null) {
+                failedCounter.increment(hits);
+                log.error("Ошибка при отправке статистики просмотра", e);
+            }
+        });
+    }
+
+    private ThreadFactory threadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "stats-client-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
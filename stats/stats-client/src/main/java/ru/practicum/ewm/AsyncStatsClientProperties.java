@@ -0,0 +1,21 @@
+package ru.practicum.ewm;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stats.client.async")
+public class AsyncStatsClientProperties {
+
+    private int threads = 2; // Количество потоков, отправляющих посещения в сервис статистики
+
+    private int queueCapacity = 1000; // Максимальное количество отправок, ожидающих свободного потока
+
+    private Duration timeout = Duration.ofSeconds(2); // Время отправки с учетом ожидания в очереди, после которого она прерывается и считается неудачной
+}
@@ -0,0 +1,152 @@
+package ru.practicum.ewm;
+
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Накопление посещений со всех потоков и их отправка пачками через POST /hits.
+ * Пачка отправляется сразу при накоплении batch-size посещений или по истечении flush-interval,
+ * а при остановке приложения буфер дописывается полностью.
+ * При переполнении буфера новые посещения отбрасываются, чтобы не блокировать вызывающий поток.
+ * Пачки отправляются по одной: следующая уходит только после исхода предыдущей.
+ * Если включен HitSpool, в него сохраняются пачки, которые точно не дошли до сервиса статистики
+ * (ошибка соединения, ответ 5xx или переполненная очередь отправки), а пока спул не опустошен,
+ * новые пачки тоже пишутся в спул, чтобы посещения доходили до сервиса статистики по порядку.
+ * Пачки с неизвестным исходом (истек таймаут чтения или срок отправки AsyncStatsClient) не сохраняются:
+ * повтор мог бы посчитать посещения дважды.
+ */
+@Slf4j
+@Component
+public class BufferedStatsClient {
+
+    private final AsyncStatsClient asyncStatsClient;
+    private final BufferedStatsClientProperties properties;
+    private final Optional<HitSpool> hitSpool;
+    private final BlockingQueue<EndpointHitInputDto> queue;
+    private final Thread flusher;
+    private final ReentrantLock sendLock = new ReentrantLock();
+
+    private final Counter droppedCounter;
+
+    private volatile boolean running = true;
+
+    public BufferedStatsClient(AsyncStatsClient asyncStatsClient,
+                               BufferedStatsClientProperties properties,
+                               Optional<HitSpool> hitSpool,
+                               MeterRegistry meterRegistry) {
+        this.asyncStatsClient = asyncStatsClient;
+        this.properties = properties;
+        this.hitSpool = hitSpool;
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        this.flusher = new Thread(this::runFlushLoop, "stats-client-flusher");
+        this.flusher.setDaemon(true);
+
+        Gauge.builder("stats.client.buffer.depth", queue, BlockingQueue::size)
+                .description("Количество посещений, ожидающих отправки в сервис статистики")
+                .register(meterRegistry);
+        this.droppedCounter = meterRegistry.counter("stats.client.buffer.dropped");
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+    }
+
+    public void addHit(EndpointHitInputDto hitDto) {
+        if (!running || !queue.offer(hitDto)) {
+            droppedCounter.increment();
+            return;
+        }
+        if (queue.size() >= properties.getBatchSize()) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    // Этот бин зависит от AsyncStatsClient и HitSpool, поэтому Spring останавливает его раньше них,
+    // и буфер дописывается, пока они еще работают
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(properties.getFlushInterval().toMillis());
+        flushAvailable();
+        log.info("Буфер отправки статистики остановлен");
+    }
+
+    private void runFlushLoop() {
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        while (running) {
+            if (queue.size() < properties.getBatchSize()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flushAvailable();
+        }
+    }
+
+    // Поток-писатель и stop() могут сбрасывать буфер одновременно, поэтому отправка пачек идет под блокировкой
+    private void flushAvailable() {
+        sendLock.lock();
+        try {
+            List<EndpointHitInputDto> batch = new ArrayList<>(properties.getBatchSize());
+            while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+                send(batch);
+                batch = new ArrayList<>(properties.getBatchSize());
+            }
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    // Ожидание исхода гарантирует, что неудачная пачка попадет в спул раньше, чем будет проверена следующая
+    private void send(List<EndpointHitInputDto> batch) {
+        if (hitSpool.isPresent() && hitSpool.get().hasPending()) {
+            hitSpool.get().append(batch);
+            return;
+        }
+        try {
+            asyncStatsClient.addHits(batch).join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (hitSpool.isPresent() && isNotDelivered(cause)) {
+                hitSpool.get().append(batch);
+            } else {
+                log.warn("Исход отправки {} посещений неизвестен, повтор не выполняется: {}", batch.size(), cause.getMessage());
+            }
+        }
+    }
+
+    // Пачка точно не обработана: отправка не начата, соединение не установлено или сервис ответил 5xx.
+    // TimeoutException означает, что вызов уже шел и был прерван, поэтому исход неизвестен
+    private boolean isNotDelivered(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return false;
+        }
+        if (e instanceof RejectedExecutionException) {
+            return true;
+        }
+        if (e instanceof RetryableException) {
+            return !(e.getCause() instanceof SocketTimeoutException);
+        }
+        return e instanceof FeignException feignException && feignException.status() >= 500;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.ewm;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stats.client.buffer")
+public class BufferedStatsClientProperties {
+
+    private int capacity = 10_000; // Максимальное количество посещений в буфере
+
+    private int batchSize = 500; // Размер пачки, при накоплении которой отправка начинается немедленно
+
+    private Duration flushInterval = Duration.ofSeconds(1); // Максимальное время ожидания неполной пачки
+}
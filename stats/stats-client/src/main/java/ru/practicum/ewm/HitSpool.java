@@ -0,0 +1,392 @@
+package ru.practicum.ewm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Локальный спул посещений на случай недоступности сервиса статистики.
+ * Посещения дописываются в отображенные в память файлы-сегменты фиксированного размера
+ * записями вида [длина][CRC32][JSON], а поток-отправитель по порядку повторно отправляет их через POST /hits.
+ * Позиция чтения после каждой отправленной пачки атомарно сохраняется в файл offset,
+ * поэтому после перезапуска отправка продолжается с места остановки (посещения доставляются хотя бы один раз).
+ * Размер спула ограничен segment-size * max-segments; дочитанные сегменты удаляются.
+ * Каждый экземпляр приложения занимает свой подкаталог instance-N внутри directory и удерживает на нем
+ * блокировку файла lock, поэтому несколько экземпляров с одинаковой настройкой не пишут в одни сегменты.
+ * Подкаталог остановленного или упавшего экземпляра занимает следующий запущенный и дочитывает его спул.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "stats.client.spool", name = "enabled", havingValue = "true")
+public class HitSpool {
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "hits-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String OFFSET_FILE = "offset";
+    private static final String LOCK_FILE = "lock";
+    private static final String INSTANCE_PREFIX = "instance-";
+
+    private final StatsClient statsClient;
+    private final ObjectMapper objectMapper;
+    private final HitSpoolProperties properties;
+    private final Path directory;
+    private final FileChannel lockChannel;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Thread sender;
+
+    private final Counter spooledCounter;
+    private final Counter replayedCounter;
+    private final Counter droppedCounter;
+
+    // Сегмент и буфер записи, изменяются только под writeLock
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private boolean closed;
+
+    // Позиция чтения, изменяется только потоком-отправителем и только под writeLock;
+    // сам отправитель читает ее без блокировки, остальные потоки - под writeLock
+    private long readSegment;
+    private int readPosition;
+    private MappedByteBuffer readBuffer;
+
+    private volatile boolean running = true;
+
+    public HitSpool(StatsClient statsClient,
+                    ObjectMapper objectMapper,
+                    HitSpoolProperties properties,
+                    MeterRegistry meterRegistry) throws IOException {
+        this.statsClient = statsClient;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.sender = new Thread(this::runSendLoop, "stats-spool-sender");
+        this.sender.setDaemon(true);
+
+        Path root = Path.of(properties.getDirectory());
+        Files.createDirectories(root);
+        int instance = 0;
+        FileChannel channel;
+        while ((channel = tryLock(root.resolve(INSTANCE_PREFIX + instance))) == null) {
+            instance++;
+        }
+        this.directory = root.resolve(INSTANCE_PREFIX + instance);
+        this.lockChannel = channel;
+        recover();
+
+        Gauge.builder("stats.client.spool.segments", this, HitSpool::lockedSegmentCount)
+                .description("Количество сегментов спула посещений на диске")
+                .register(meterRegistry);
+        this.spooledCounter = meterRegistry.counter("stats.client.spool.spooled");
+        this.replayedCounter = meterRegistry.counter("stats.client.spool.replayed");
+        this.droppedCounter = meterRegistry.counter("stats.client.spool.dropped");
+    }
+
+    @PostConstruct
+    public void start() {
+        sender.start();
+        log.info("Включен спул посещений в каталоге {}: segmentSize = {}, maxSegments = {}",
+                directory.toAbsolutePath(), properties.getSegmentSize(), properties.getMaxSegments());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(sender);
+        sender.join(properties.getReplayInterval().toMillis());
+        writeLock.lock();
+        try {
+            closed = true;
+            writeBuffer.force();
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            // закрытие канала снимает блокировку каталога, и его может занять другой экземпляр
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Не удалось снять блокировку каталога спула {}", directory, e);
+        }
+        log.info("Спул посещений остановлен");
+    }
+
+    public boolean hasPending() {
+        writeLock.lock();
+        try {
+            return readSegment != writeSegment || readPosition < writeBuffer.position();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void append(List<EndpointHitInputDto> hitDtos) {
+        writeLock.lock();
+        try {
+            if (closed) {
+                droppedCounter.increment(hitDtos.size());
+                return;
+            }
+            for (EndpointHitInputDto hitDto : hitDtos) {
+                byte[] payload = objectMapper.writeValueAsBytes(hitDto);
+                if (HEADER_SIZE + payload.length > writeBuffer.remaining()) {
+                    if (segmentCount() >= properties.getMaxSegments() || HEADER_SIZE + payload.length > properties.getSegmentSize()) {
+                        droppedCounter.increment();
+                        continue;
+                    }
+                    rotate();
+                }
+                int position = writeBuffer.position();
+                writeBuffer.put(position + HEADER_SIZE, payload);
+                writeBuffer.putInt(position + Integer.BYTES, crc(payload));
+                writeBuffer.putInt(position, payload.length);
+                writeBuffer.position(position + HEADER_SIZE + payload.length);
+                spooledCounter.increment();
+            }
+            writeBuffer.force();
+        } catch (IOException e) {
+            droppedCounter.increment(hitDtos.size());
+            log.error("Не удалось записать {} посещений в спул", hitDtos.size(), e);
+        } finally {
+            writeLock.unlock();
+        }
+        LockSupport.unpark(sender);
+    }
+
+    private void runSendLoop() {
+        long replayIntervalNanos = properties.getReplayInterval().toNanos();
+        while (running) {
+            boolean sent = false;
+            try {
+                sent = sendNextBatch();
+            } catch (Exception e) {
+                log.warn("Не удалось отправить посещения из спула, повтор через {}: {}",
+                        properties.getReplayInterval(), e.getMessage());
+            }
+            if (!sent) {
+                LockSupport.parkNanos(this, replayIntervalNanos);
+            }
+        }
+    }
+
+    private boolean sendNextBatch() throws IOException {
+        long currentWriteSegment;
+        int writePosition;
+        writeLock.lock();
+        try {
+            currentWriteSegment = writeSegment;
+            writePosition = writeBuffer.position();
+        } finally {
+            writeLock.unlock();
+        }
+        if (readSegment == currentWriteSegment && readPosition >= writePosition) {
+            return false;
+        }
+
+        if (readBuffer == null) {
+            readBuffer = map(readSegment);
+        }
+        int limit = readSegment == currentWriteSegment ? writePosition : readBuffer.capacity();
+        List<EndpointHitInputDto> batch = new ArrayList<>(properties.getReplayBatchSize());
+        int position = readPosition;
+        while (batch.size() < properties.getReplayBatchSize()) {
+            byte[] payload = readRecord(readBuffer, position, limit);
+            if (payload == null) {
+                break;
+            }
+            batch.add(objectMapper.readValue(payload, EndpointHitInputDto.class));
+            position += HEADER_SIZE + payload.length;
+        }
+
+        if (batch.isEmpty()) {
+            if (readSegment < currentWriteSegment) {
+                // сегмент дочитан и больше не пишется: удаляем его и переходим к следующему
+                Files.deleteIfExists(segmentPath(readSegment));
+                readBuffer = null;
+                advance(readSegment + 1, 0);
+                saveOffset();
+                return true;
+            }
+            return false;
+        }
+
+        statsClient.addHits(batch);
+        replayedCounter.increment(batch.size());
+        advance(readSegment, position);
+        saveOffset();
+        return true;
+    }
+
+    // Восстановление после перезапуска: позиция чтения из offset, позиция записи - по последней целой записи
+    private void recover() throws IOException {
+        List<Long> segments = listSegments();
+        long[] offset = readOffset();
+        if (segments.isEmpty()) {
+            writeSegment = offset != null ? offset[0] + 1 : 0;
+            readSegment = writeSegment;
+            readPosition = 0;
+            writeBuffer = map(writeSegment);
+            return;
+        }
+
+        writeSegment = segments.getLast();
+        writeBuffer = map(writeSegment);
+        int position = 0;
+        byte[] payload;
+        while ((payload = readRecord(writeBuffer, position, writeBuffer.capacity())) != null) {
+            position += HEADER_SIZE + payload.length;
+        }
+        // хвост после последней целой записи мог остаться от прерванной записи: затираем его
+        for (int i = position; i < writeBuffer.capacity(); i++) {
+            writeBuffer.put(i, (byte) 0);
+        }
+        writeBuffer.position(position);
+
+        if (offset != null && segments.contains(offset[0])) {
+            readSegment = offset[0];
+            readPosition = (int) offset[1];
+        } else {
+            readSegment = segments.getFirst();
+            readPosition = 0;
+        }
+        for (Long segment : segments) {
+            if (segment < readSegment) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+        log.info("Спул посещений восстановлен: чтение с сегмента {} позиции {}, запись в сегмент {} с позиции {}",
+                readSegment, readPosition, writeSegment, position);
+    }
+
+    private void advance(long segment, int position) {
+        writeLock.lock();
+        try {
+            readSegment = segment;
+            readPosition = position;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void rotate() throws IOException {
+        writeBuffer.force();
+        writeSegment++;
+        writeBuffer = map(writeSegment);
+    }
+
+    // Вызывается под writeLock
+    private long segmentCount() {
+        return writeSegment - readSegment + 1;
+    }
+
+    private long lockedSegmentCount() {
+        writeLock.lock();
+        try {
+            return segmentCount();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Блокировка каталога экземпляра; null, если каталог занят другим процессом или другим спулом этой JVM
+    private static FileChannel tryLock(Path instanceDirectory) throws IOException {
+        Files.createDirectories(instanceDirectory);
+        FileChannel channel = FileChannel.open(instanceDirectory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.tryLock() != null) {
+                return channel;
+            }
+        } catch (OverlappingFileLockException e) {
+            // каталог уже занят в этой JVM
+        }
+        channel.close();
+        return null;
+    }
+
+    private byte[] readRecord(ByteBuffer buffer, int position, int limit) {
+        if (position + HEADER_SIZE > limit) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + HEADER_SIZE + length > limit) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(position + HEADER_SIZE, payload);
+        return crc(payload) == buffer.getInt(position + Integer.BYTES) ? payload : null;
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, properties.getSegmentSize());
+        }
+    }
+
+    private void saveOffset() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+                .putLong(readSegment)
+                .putInt(readPosition)
+                .flip();
+        Path tmp = directory.resolve(OFFSET_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(data);
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(OFFSET_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private long[] readOffset() throws IOException {
+        Path path = directory.resolve(OFFSET_FILE);
+        if (!Files.exists(path) || Files.size(path) != Long.BYTES + Integer.BYTES) {
+            return null;
+        }
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        return new long[]{data.getLong(), data.getInt()};
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (NumberFormatException e) {
+            throw new UncheckedIOException(new IOException("Некорректное имя сегмента спула в " + directory, e));
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%019d", segment) + SEGMENT_SUFFIX);
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.ewm;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stats.client.spool")
+public class HitSpoolProperties {
+
+    private boolean enabled = false; // Сохранять посещения на диск, если сервис статистики недоступен
+
+    private String directory = "stats-spool"; // Каталог спула; каждый экземпляр приложения занимает в нем свой подкаталог instance-N
+
+    private int segmentSize = 8 * 1024 * 1024; // Размер одного файла-сегмента в байтах
+
+    private int maxSegments = 16; // Максимальное количество сегментов; при заполнении новые посещения отбрасываются
+
+    private int replayBatchSize = 500; // Размер пачки при повторной отправке
+
+    private Duration replayInterval = Duration.ofSeconds(5); // Пауза между попытками, когда сервис недоступен или спул пуст
+}
@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @FeignClient(name = "stats-server")
 public interface StatsClient {
@@ -18,9 +19,22 @@ public interface StatsClient {
     @PostMapping("/hit")
     String addHit(@RequestBody EndpointHitInputDto hitDto) throws FeignException;
 
+    @PostMapping("/hits")
+    void addHits(@RequestBody List<EndpointHitInputDto> hitDtos) throws FeignException;
+
     @GetMapping("/stats")
     ResponseEntity<Object> getStats(@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
                                     @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
                                     @RequestParam(required = false) List<String> uris,
-                                    @RequestParam(required = false) Boolean unique) throws FeignException;
+                                    @RequestParam(required = false) Boolean unique,
+                                    @RequestParam(required = false) Boolean exact) throws FeignException;
+
+    @GetMapping("/views/events")
+    Map<Long, EventViewsDto> getEventViews(@RequestParam List<Long> ids) throws FeignException;
+
+    @GetMapping("/views/events/changes")
+    EventViewChangesDto getEventViewChanges(@RequestParam long after) throws FeignException;
+
+    @GetMapping("/hits/changes")
+    UriHitChangesDto getHitChanges(@RequestParam long after) throws FeignException;
 }
@@ -0,0 +1,261 @@
+package ru.practicum.ewm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class HitSpoolTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final HitSpoolProperties properties = new HitSpoolProperties();
+    // посещения в том порядке, в каком их получил сервис статистики
+    private final List<String> delivered = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSize(SEGMENT_SIZE);
+        properties.setMaxSegments(4);
+        properties.setReplayBatchSize(3);
+        properties.setReplayInterval(Duration.ofMillis(20));
+    }
+
+    @Test
+    void spooledHitsAreReplayedAfterRestart() throws Exception {
+        HitSpool spool = spool(mock(StatsClient.class));
+        spool.append(hits(0, 5));
+        assertThat(spool.hasPending()).isTrue();
+        spool.stop();
+
+        HitSpool restarted = spool(deliveringClient());
+        restarted.start();
+        try {
+            awaitTrue(() -> !restarted.hasPending());
+        } finally {
+            restarted.stop();
+        }
+
+        assertThat(delivered()).containsExactlyElementsOf(uris(0, 5));
+    }
+
+    @Test
+    void replayedHitsAreNotSentAgainAfterRestart() throws Exception {
+        HitSpool spool = spool(deliveringClient());
+        spool.append(hits(0, 4));
+        spool.start();
+        try {
+            awaitTrue(() -> !spool.hasPending());
+        } finally {
+            spool.stop();
+        }
+
+        HitSpool restarted = spool(deliveringClient());
+        restarted.start();
+        try {
+            assertThat(restarted.hasPending()).isFalse();
+            restarted.append(hits(4, 6));
+            awaitTrue(() -> !restarted.hasPending());
+        } finally {
+            restarted.stop();
+        }
+
+        assertThat(delivered()).containsExactlyElementsOf(uris(0, 6));
+    }
+
+    @Test
+    void failedReplayIsRetriedInOrder() throws Exception {
+        AtomicInteger failures = new AtomicInteger(2);
+        StatsClient statsClient = mock(StatsClient.class);
+        doAnswer(invocation -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("сервис статистики недоступен");
+            }
+            return deliver(invocation.getArgument(0));
+        }).when(statsClient).addHits(anyList());
+
+        HitSpool spool = spool(statsClient);
+        spool.append(hits(0, 7));
+        spool.start();
+        try {
+            awaitTrue(() -> !spool.hasPending());
+        } finally {
+            spool.stop();
+        }
+
+        assertThat(delivered()).containsExactlyElementsOf(uris(0, 7));
+    }
+
+    @Test
+    void tornRecordAtTailIsDiscardedOnRecovery() throws Exception {
+        HitSpool spool = spool(mock(StatsClient.class));
+        spool.append(hits(0, 3));
+        spool.stop();
+
+        // прерванная запись: последняя запись повреждена, а за ней остался заголовок без данных
+        Path segment = singleSegment();
+        List<Integer> records = recordPositions(segment);
+        int end = records.getLast() + 2 * Integer.BYTES + length(segment, records.getLast());
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'x'}), records.getLast() + 2 * Integer.BYTES);
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 1000), end);
+        }
+
+        HitSpool restarted = spool(deliveringClient());
+        // новые посещения пишутся поверх отброшенного хвоста
+        restarted.append(hits(3, 5));
+        restarted.start();
+        try {
+            awaitTrue(() -> !restarted.hasPending());
+        } finally {
+            restarted.stop();
+        }
+
+        assertThat(delivered()).containsExactly("/events/0", "/events/1", "/events/3", "/events/4");
+    }
+
+    @Test
+    void hitsSpanningSegmentsAreReplayedAndSegmentsRemoved() throws Exception {
+        HitSpool spool = spool(mock(StatsClient.class));
+        for (int i = 0; i < 60; i += 10) {
+            spool.append(hits(i, i + 10));
+        }
+        spool.stop();
+        assertThat(segments()).hasSizeGreaterThan(1);
+
+        HitSpool restarted = spool(deliveringClient());
+        restarted.start();
+        try {
+            awaitTrue(() -> !restarted.hasPending());
+        } finally {
+            restarted.stop();
+        }
+
+        assertThat(delivered()).containsExactlyElementsOf(uris(0, 60));
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void concurrentInstancesUseSeparateDirectories() throws Exception {
+        HitSpool first = spool(mock(StatsClient.class));
+        HitSpool second = spool(mock(StatsClient.class));
+        try {
+            first.append(hits(0, 2));
+
+            assertThat(first.hasPending()).isTrue();
+            assertThat(second.hasPending()).isFalse();
+            assertThat(directory.resolve("instance-0")).isDirectory();
+            assertThat(directory.resolve("instance-1")).isDirectory();
+        } finally {
+            first.stop();
+            second.stop();
+        }
+    }
+
+    private HitSpool spool(StatsClient statsClient) throws IOException {
+        return new HitSpool(statsClient, objectMapper, properties, new SimpleMeterRegistry());
+    }
+
+    private StatsClient deliveringClient() {
+        StatsClient statsClient = mock(StatsClient.class);
+        doAnswer(invocation -> deliver(invocation.getArgument(0))).when(statsClient).addHits(anyList());
+        return statsClient;
+    }
+
+    private Void deliver(List<EndpointHitInputDto> hitDtos) {
+        synchronized (delivered) {
+            hitDtos.forEach(hitDto -> delivered.add(hitDto.getUri()));
+        }
+        return null;
+    }
+
+    private List<String> delivered() {
+        synchronized (delivered) {
+            return List.copyOf(delivered);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("instance-0"))) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".spool")).sorted().toList();
+        }
+    }
+
+    private Path singleSegment() throws IOException {
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        return segments.getFirst();
+    }
+
+    // Позиции записей [длина][CRC32][JSON] от начала сегмента до первого пустого заголовка
+    private static List<Integer> recordPositions(Path segment) throws IOException {
+        List<Integer> positions = new ArrayList<>();
+        int position = 0;
+        int length;
+        while ((length = length(segment, position)) > 0) {
+            positions.add(position);
+            position += 2 * Integer.BYTES + length;
+        }
+        return positions;
+    }
+
+    private static int length(Path segment, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(header, position);
+            return header.getInt(0);
+        }
+    }
+
+    private static List<EndpointHitInputDto> hits(int fromInclusive, int toExclusive) {
+        return IntStream.range(fromInclusive, toExclusive)
+                .mapToObj(i -> {
+                    EndpointHitInputDto hit = new EndpointHitInputDto();
+                    hit.setApp("ewm-main");
+                    hit.setUri("/events/" + i);
+                    hit.setIp("10.0.0." + i);
+                    hit.setTimestamp(LocalDateTime.of(2026, 1, 1, 12, 0, i));
+                    return hit;
+                })
+                .toList();
+    }
+
+    private static List<String> uris(int fromInclusive, int toExclusive) {
+        return IntStream.range(fromInclusive, toExclusive).mapToObj(i -> "/events/" + i).toList();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("условие не выполнено за 5 секунд").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.ewm;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventViewChangesDto {
+    private Map<Long, EventViewsDto> views; // Текущие итоги просмотров событий, изменившихся после переданной отметки
+    private long watermark; // Отметка, которую нужно передать в следующем запросе изменений
+}
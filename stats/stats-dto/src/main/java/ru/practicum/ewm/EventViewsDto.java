@@ -0,0 +1,15 @@
+package ru.practicum.ewm;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventViewsDto {
+    private long hits; // Количество просмотров события за все время
+    private long uniqueHits; // Количество просмотров события с уникальных IP за все время
+}
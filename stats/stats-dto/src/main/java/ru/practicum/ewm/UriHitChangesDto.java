@@ -0,0 +1,17 @@
+package ru.practicum.ewm;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class UriHitChangesDto {
+    private List<UriHitDeltaDto> deltas; // Приращения посещений по URI после переданной отметки
+    private long watermark; // Отметка, которую нужно передать в следующем запросе изменений
+}
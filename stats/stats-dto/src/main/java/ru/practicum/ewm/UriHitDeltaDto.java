@@ -0,0 +1,16 @@
+package ru.practicum.ewm;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class UriHitDeltaDto {
+    private String uri; // URI запроса
+    private long hits; // Прирост количества посещений
+    private long uniqueHits; // Прирост количества посещений с ранее не встречавшихся для этого URI IP
+}
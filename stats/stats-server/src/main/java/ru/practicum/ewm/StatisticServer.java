@@ -2,8 +2,11 @@ package ru.practicum.ewm;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// ru.practicum.monitoring - общий модуль common с диагностикой виртуальных потоков
+@SpringBootApplication(scanBasePackages = {"ru.practicum.ewm", "ru.practicum.monitoring"})
+@EnableScheduling
 public class StatisticServer {
     public static void main(String[] args) {
         SpringApplication.run(StatisticServer.class, args);
@@ -0,0 +1,19 @@
+package ru.practicum.ewm.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stats.delta-feed")
+public class DeltaFeedProperties {
+
+    private Duration retention = Duration.ofDays(7); // Сколько хранить приращения; отстающие дольше потребители их теряют
+
+    private Duration purgeInterval = Duration.ofHours(1); // Как часто удалять устаревшие приращения
+}
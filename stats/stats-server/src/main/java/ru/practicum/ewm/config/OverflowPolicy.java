@@ -0,0 +1,7 @@
+package ru.practicum.ewm.config;
+
+public enum OverflowPolicy {
+    BLOCK,       // Ждать освобождения места не дольше offer-timeout, затем отказать (429)
+    DROP_OLDEST, // Вытеснить самые старые посещения из буфера
+    REJECT       // Сразу отказать (429)
+}
@@ -0,0 +1,6 @@
+package ru.practicum.ewm.config;
+
+public enum PartitionInterval {
+    DAILY,   // Одна секция endpoint_hit на сутки
+    MONTHLY  // Одна секция endpoint_hit на календарный месяц
+}
@@ -0,0 +1,29 @@
+package ru.practicum.ewm.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stats.storage.partitioning")
+public class PartitionProperties {
+
+    private boolean enabled = false; // Создавать секции endpoint_hit заранее и применять политику хранения
+
+    private PartitionInterval interval = PartitionInterval.MONTHLY; // Размер одной секции
+
+    private int premake = 2; // Сколько будущих секций держать созданными помимо текущей
+
+    // Сколько хранить исходные посещения; если не задано - хранить всегда. Точная статистика уникальных посещений
+    // и края диапазонов считаются по исходным посещениям, поэтому посещения старше retention из них выпадают
+    private Duration retention;
+
+    private RetentionAction retentionAction = RetentionAction.DETACH; // Что делать с секциями старше retention
+
+    private Duration maintenanceInterval = Duration.ofHours(1); // Как часто проверять секции
+}
@@ -0,0 +1,6 @@
+package ru.practicum.ewm.config;
+
+public enum RetentionAction {
+    DROP,   // Удалить устаревшую секцию вместе с данными
+    DETACH  // Отсоединить устаревшую секцию и сохранить ее как отдельную архивную таблицу
+}
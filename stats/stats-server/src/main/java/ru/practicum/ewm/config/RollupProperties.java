@@ -0,0 +1,19 @@
+package ru.practicum.ewm.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stats.rollup")
+public class RollupProperties {
+
+    private Duration interval = Duration.ofSeconds(5); // Период обновления агрегатов по новым посещениям
+
+    private long maxTransactions = 10_000; // Сколько транзакций записи посещений учитывается за один шаг обновления
+}
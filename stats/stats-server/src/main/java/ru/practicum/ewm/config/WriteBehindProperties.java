@@ -0,0 +1,33 @@
+package ru.practicum.ewm.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stats.write-behind")
+public class WriteBehindProperties {
+
+    private boolean enabled = false; // Принимать посещения в буфер и записывать их в БД в фоне
+
+    private int capacity = 10_000; // Максимальное количество посещений в буфере
+
+    private int batchSize = 500; // Размер пачки, при накоплении которой запись начинается немедленно
+
+    private Duration flushInterval = Duration.ofSeconds(1); // Максимальное время ожидания неполной пачки
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK; // Поведение при переполнении буфера
+
+    private Duration offerTimeout = Duration.ofMillis(100); // Время ожидания места в буфере для политики BLOCK
+
+    private Duration shutdownTimeout = Duration.ofSeconds(10); // Время на дозапись буфера при остановке
+
+    private Duration retryInitialBackoff = Duration.ofMillis(100); // Пауза перед первым повтором записи пачки при недоступности БД
+
+    private Duration retryMaxBackoff = Duration.ofSeconds(10); // Наибольшая пауза между повторами записи пачки
+}
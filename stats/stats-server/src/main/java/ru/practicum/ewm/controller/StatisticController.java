@@ -1,17 +1,29 @@
 package ru.practicum.ewm.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.ewm.EndpointHitInputDto;
+import ru.practicum.ewm.EventViewChangesDto;
+import ru.practicum.ewm.EventViewsDto;
+import ru.practicum.ewm.UriHitChangesDto;
 import ru.practicum.ewm.service.StatisticServiceImpl;
+import ru.practicum.ewm.service.StatsStream;
 import ru.practicum.ewm.ViewStatsOutputDto;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
@@ -19,7 +31,11 @@ import java.util.List;
 @Slf4j
 public class StatisticController {
 
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final int NDJSON_FLUSH_ROWS = 1000;
+
     private final StatisticServiceImpl statisticServiceImpl;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
@@ -29,15 +45,107 @@ public class StatisticController {
         log.info("Обработан запрос Post /hit на создание EndpointHit с телом: {}", endpointHitInputDto);
     }
 
+    @PostMapping("/hits")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void createEndpointHits(@RequestBody List<@Valid EndpointHitInputDto> endpointHitInputDtos) {
+        log.info("Поступил запрос Post /hits на создание {} EndpointHit", endpointHitInputDtos.size());
+        statisticServiceImpl.createEndpointHits(endpointHitInputDtos);
+        log.info("Обработан запрос Post /hits на создание {} EndpointHit", endpointHitInputDtos.size());
+    }
+
+    /**
+     * При unique = true и exact = false количество уникальных посещений оценивается по скетчам HyperLogLog:
+     * относительная стандартная ошибка ≈ 2.3%, примерно в 95% случаев ошибка не превышает 4.6%.
+     */
     @GetMapping("/stats")
     public List<ViewStatsOutputDto> getStats(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
                                              @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
                                              @RequestParam(required = false) List<String> uris,
-                                             @RequestParam(required = false, defaultValue = "false") Boolean unique) {
+                                             @RequestParam(required = false, defaultValue = "false") Boolean unique,
+                                             @RequestParam(required = false, defaultValue = "true") Boolean exact) {
+
+        log.info("Поступил запрос Get /stats на получение List<ViewStatsOutputDto> с параметрами: start = {}, end = {}, uris = {}, unique = {}, exact = {}",
+                start, end, uris, unique, exact);
+        List<ViewStatsOutputDto> response = statisticServiceImpl.getStats(uris, start, end, unique, exact);
+        log.info("Сформирован ответ Get /stats из {} строк", response.size());
+        log.debug("Тело ответа Get /stats: {}", response);
+
+        return response;
+    }
+
+    /**
+     * Потоковая выдача статистики при Accept: application/x-ndjson: по одному JSON-объекту на строку.
+     * Порядок строк тот же, что у GET /stats (по убыванию hits).
+     * Потоковая выдача ограничивает только память, но не задержку: строки читаются из курсора БД и сразу пишутся
+     * в ответ, поэтому память сервиса не зависит от размера результата, однако из-за сортировки по hits БД выдает
+     * первую строку лишь после агрегации всего диапазона, и время до первой строки и до конца ответа такое же,
+     * как у GET /stats. При unique = true и exact = false результат собирается в памяти целиком до выдачи.
+     */
+    @GetMapping(value = "/stats", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamStats(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                                             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                                             @RequestParam(required = false) List<String> uris,
+                                                             @RequestParam(required = false, defaultValue = "false") Boolean unique,
+                                                             @RequestParam(required = false, defaultValue = "true") Boolean exact) {
+
+        log.info("Поступил запрос Get /stats ({}) с параметрами: start = {}, end = {}, uris = {}, unique = {}, exact = {}",
+                APPLICATION_NDJSON_VALUE, start, end, uris, unique, exact);
+        StatsStream stats = statisticServiceImpl.streamStats(uris, start, end, unique, exact);
+        StreamingResponseBody body = outputStream -> {
+            long[] rows = {0};
+            stats.forEach(viewStatsOutputDto -> {
+                try {
+                    outputStream.write(objectMapper.writeValueAsBytes(viewStatsOutputDto));
+                    outputStream.write('\n');
+                    // первую строку отдаем сразу после готовности результата в БД, дальше сбрасываем буфер периодически
+                    if (rows[0]++ % NDJSON_FLUSH_ROWS == 0) {
+                        outputStream.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+            log.info("Сформирован потоковый ответ Get /stats из {} строк", rows[0]);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    // Итоги просмотров событий за все время по их id; события без просмотров в ответ не попадают
+    @GetMapping("/views/events")
+    public Map<Long, EventViewsDto> getEventViews(@RequestParam List<Long> ids) {
+        log.info("Поступил запрос Get /views/events на получение просмотров {} событий", ids.size());
+        Map<Long, EventViewsDto> response = statisticServiceImpl.getEventViews(ids);
+        log.info("Сформирован ответ Get /views/events с просмотрами {} событий", response.size());
+
+        return response;
+    }
+
+    // Итоги просмотров событий, изменившиеся после отметки after; в ответе - отметка для следующего запроса
+    @GetMapping("/views/events/changes")
+    public EventViewChangesDto getEventViewChanges(@RequestParam(defaultValue = "0") long after) {
+        log.info("Поступил запрос Get /views/events/changes с отметкой {}", after);
+        EventViewChangesDto response = statisticServiceImpl.getEventViewChanges(after);
+        log.info("Сформирован ответ Get /views/events/changes: {} событий, новая отметка {}",
+                response.getViews().size(), response.getWatermark());
+
+        return response;
+    }
 
-        log.info("Поступил запрос Get /stats на получение List<ViewStatsOutputDto> с параметрами: start = {}, end = {}, uris = {}, unique = {}", start, end, uris, unique);
-        List<ViewStatsOutputDto> response = statisticServiceImpl.getStats(uris, start, end, unique);
-        log.info("Сформирован ответ Get /stats с телом: {}", response);
+    /**
+     * Приращения посещений по URI после отметки after (0 - с начала хранимого журнала).
+     * Полученную отметку нужно передать в следующем запросе: каждое приращение выдается ровно один раз.
+     * Если отметка в ответе меньше переданной, журнал сервиса статистики был пересоздан и синхронизацию нужно начать с 0.
+     */
+    @GetMapping("/hits/changes")
+    public UriHitChangesDto getHitChanges(@RequestParam(defaultValue = "0") long after) {
+        log.info("Поступил запрос Get /hits/changes с отметкой {}", after);
+        UriHitChangesDto response = statisticServiceImpl.getHitChanges(after);
+        log.info("Сформирован ответ Get /hits/changes: {} URI, новая отметка {}",
+                response.getDeltas().size(), response.getWatermark());
 
         return response;
     }
@@ -45,4 +45,11 @@ public class ErrorHandler {
         final List<Violation> violations = List.of(new Violation("BAD REQUEST ERROR", e.getMessage()));
         return new ErrorResponse(violations);
     }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleTooManyRequestsException(TooManyRequestsException e) {
+        final List<Violation> violations = List.of(new Violation("TOO MANY REQUESTS", e.getMessage()));
+        return new ErrorResponse(violations);
+    }
 }
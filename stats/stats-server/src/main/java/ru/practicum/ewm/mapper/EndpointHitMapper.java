@@ -1,16 +1,49 @@
 package ru.practicum.ewm.mapper;
 
 import ru.practicum.ewm.EndpointHitInputDto;
+import ru.practicum.ewm.exception.BadRequestException;
 import ru.practicum.ewm.model.EndpointHit;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.regex.Pattern;
+
 public class EndpointHitMapper {
+
+    private static final Pattern IPV4 = Pattern.compile("((25[0-5]|2[0-4]\\d|1?\\d?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1?\\d?\\d)");
+
+    // Группы шестнадцатеричных цифр через ':' с необязательным IPv4 в конце; без зоны '%', скобок и букв вне a-f
+    private static final Pattern IPV6 = Pattern.compile("[0-9A-Fa-f:][0-9A-Fa-f:.]{1,44}");
+
     public static EndpointHit toEndpointHit(EndpointHitInputDto endpointHitInputDto) {
         EndpointHit endpointHit = new EndpointHit();
-        endpointHit.setIp(endpointHitInputDto.getIp());
+        endpointHit.setIp(toIpBytes(endpointHitInputDto.getIp()));
         endpointHit.setApp(endpointHitInputDto.getApp());
         endpointHit.setUri(endpointHitInputDto.getUri());
         endpointHit.setTimestamp(endpointHitInputDto.getTimestamp());
 
         return endpointHit;
     }
+
+    public static List<EndpointHit> toEndpointHit(List<EndpointHitInputDto> endpointHitInputDtos) {
+        return endpointHitInputDtos.stream()
+                .map(EndpointHitMapper::toEndpointHit)
+                .toList();
+    }
+
+    // До разбора пропускаем только IPv4 и строки из символов IPv6-литерала с ':'. Строку, которая начинается
+    // с шестнадцатеричной цифры или ':', InetAddress.getByName разбирает как числовой литерал и при ошибке
+    // сразу отклоняет, поэтому запись посещения не обращается к DNS
+    public static byte[] toIpBytes(String ip) {
+        boolean ipv4 = IPV4.matcher(ip).matches();
+        if (!ipv4 && (ip.indexOf(':') < 0 || !IPV6.matcher(ip).matches())) {
+            throw new BadRequestException("Некорректный IP-адрес: " + ip);
+        }
+        try {
+            return InetAddress.getByName(ip).getAddress();
+        } catch (UnknownHostException | IllegalArgumentException e) {
+            throw new BadRequestException("Некорректный IP-адрес: " + ip);
+        }
+    }
 }
@@ -14,14 +14,20 @@ public class EndpointHit {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "app")
+    @Column(name = "app_id")
+    private Integer appId; // идентификатор приложения в словаре stats_app
+
+    @Column(name = "uri_id")
+    private Integer uriId; // идентификатор URI в словаре stats_uri
+
+    @Transient
     private String app; // идентификатор сервиса для которого записывается информация
 
-    @Column(name = "uri")
+    @Transient
     private String uri; // URI для которого был осуществлен запрос
 
     @Column(name = "ip")
-    private String ip; // IP-адрес пользователя, осуществившего запрос
+    private byte[] ip; // IP-адрес пользователя, осуществившего запрос (4 байта для IPv4, 16 байт для IPv6)
 
     @Column(name = "timestamp")
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
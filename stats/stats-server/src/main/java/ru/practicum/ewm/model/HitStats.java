@@ -0,0 +1,5 @@
+package ru.practicum.ewm.model;
+
+// Строка статистики в закодированном виде: app и uri заменены идентификаторами словарей
+public record HitStats(int appId, int uriId, long hits) {
+}
@@ -0,0 +1,43 @@
+package ru.practicum.ewm.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.function.UnaryOperator;
+
+public enum RollupGranularity {
+    MINUTE("endpoint_hit_rollup_minute", false, ChronoUnit.MINUTES, t -> t.truncatedTo(ChronoUnit.MINUTES)),
+    HOUR("endpoint_hit_rollup_hour", true, ChronoUnit.HOURS, t -> t.truncatedTo(ChronoUnit.HOURS)),
+    DAY("endpoint_hit_rollup_day", true, ChronoUnit.DAYS, t -> t.truncatedTo(ChronoUnit.DAYS)),
+    MONTH("endpoint_hit_rollup_month", true, ChronoUnit.MONTHS, t -> t.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1));
+
+    private final String tableName; // Таблица с агрегатами данной гранулярности
+    private final boolean sketched; // Хранится ли в агрегатах скетч HyperLogLog уникальных ip
+    private final ChronoUnit unit; // Длина одного интервала
+    private final UnaryOperator<LocalDateTime> truncation; // Начало интервала, в который попадает момент времени
+
+    RollupGranularity(String tableName, boolean sketched, ChronoUnit unit, UnaryOperator<LocalDateTime> truncation) {
+        this.tableName = tableName;
+        this.sketched = sketched;
+        this.unit = unit;
+        this.truncation = truncation;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public boolean isSketched() {
+        return sketched;
+    }
+
+    // Начало интервала, содержащего момент времени
+    public LocalDateTime floor(LocalDateTime dateTime) {
+        return truncation.apply(dateTime);
+    }
+
+    // Начало ближайшего интервала, который не начинается раньше момента времени
+    public LocalDateTime ceil(LocalDateTime dateTime) {
+        LocalDateTime floor = floor(dateTime);
+        return floor.equals(dateTime) ? floor : floor.plus(1, unit);
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.ewm.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Часть диапазона выборки статистики [from, to).
+ * Если granularity не задана, часть считается по исходным посещениям из endpoint_hit,
+ * иначе - по агрегатам соответствующей гранулярности.
+ */
+public record StatsRangeSegment(RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+
+    public static StatsRangeSegment raw(LocalDateTime from, LocalDateTime to) {
+        return new StatsRangeSegment(null, from, to);
+    }
+
+    public boolean isRaw() {
+        return granularity == null;
+    }
+}
@@ -0,0 +1,5 @@
+package ru.practicum.ewm.model;
+
+// Приращение посещений одного URI: всего и с новых для этого URI ip
+public record UriHitDelta(int uriId, long hits, long uniqueHits) {
+}
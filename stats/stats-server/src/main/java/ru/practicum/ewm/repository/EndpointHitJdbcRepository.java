@@ -0,0 +1,20 @@
+package ru.practicum.ewm.repository;
+
+import ru.practicum.ewm.model.EndpointHit;
+import ru.practicum.ewm.model.HitStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface EndpointHitJdbcRepository {
+
+    // Сохранение пачки посещений через JDBC batch (один round-trip на batchSize строк)
+    void saveAllInBatch(List<EndpointHit> endpointHits);
+
+    // Получение статистики по посещениям (учитываются только уникальные посещения по ip); uriIds = null - все URI
+    List<HitStats> findDistinctIpStats(List<Integer> uriIds, LocalDateTime start, LocalDateTime end);
+
+    // То же, что findDistinctIpStats, но строки передаются consumer по мере чтения из курсора (вызывать в транзакции)
+    void streamDistinctIpStats(List<Integer> uriIds, LocalDateTime start, LocalDateTime end, Consumer<HitStats> consumer);
+}
@@ -0,0 +1,69 @@
+package ru.practicum.ewm.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.ewm.model.EndpointHit;
+import ru.practicum.ewm.model.HitStats;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class EndpointHitJdbcRepositoryImpl implements EndpointHitJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO endpoint_hit (app_id, uri_id, ip, timestamp, written_xid)
+            VALUES (?, ?, ?, ?, pg_current_xact_id())
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StreamingQueryTemplate streamingQueryTemplate;
+
+    @Override
+    public void saveAllInBatch(List<EndpointHit> endpointHits) {
+        if (endpointHits.isEmpty()) {
+            return;
+        }
+        // при reWriteBatchedInserts=true драйвер PostgreSQL склеивает пачку в многострочный INSERT
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_SQL, endpointHits, BATCH_SIZE, (ps, endpointHit) -> {
+            ps.setInt(1, endpointHit.getAppId());
+            ps.setInt(2, endpointHit.getUriId());
+            ps.setBytes(3, endpointHit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(endpointHit.getTimestamp()));
+        });
+    }
+
+    @Override
+    public List<HitStats> findDistinctIpStats(List<Integer> uriIds, LocalDateTime start, LocalDateTime end) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        return jdbcTemplate.query(distinctIpStatsSql(uriIds, start, end, params), params,
+                (rs, rowNum) -> new HitStats(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    @Override
+    public void streamDistinctIpStats(List<Integer> uriIds, LocalDateTime start, LocalDateTime end, Consumer<HitStats> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        streamingQueryTemplate.query(distinctIpStatsSql(uriIds, start, end, params), params,
+                rs -> consumer.accept(new HitStats(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits"))));
+    }
+
+    private String distinctIpStatsSql(List<Integer> uriIds, LocalDateTime start, LocalDateTime end, MapSqlParameterSource params) {
+        params.addValue("start", Timestamp.valueOf(start));
+        params.addValue("end", Timestamp.valueOf(end));
+        String uriFilter = "";
+        if (uriIds != null) {
+            params.addValue("uriIds", uriIds);
+            uriFilter = " AND uri_id IN (:uriIds)";
+        }
+
+        // ORDER BY hits DESC вынуждает БД агрегировать весь диапазон до первой строки: курсор экономит память, но не время ответа
+        return "SELECT app_id, uri_id, COUNT(DISTINCT ip) AS hits FROM endpoint_hit"
+                + " WHERE timestamp >= :start AND timestamp <= :end" + uriFilter
+                + " GROUP BY app_id, uri_id ORDER BY hits DESC";
+    }
+}
@@ -0,0 +1,277 @@
+package ru.practicum.ewm.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.model.EndpointHit;
+import ru.practicum.ewm.model.HitStats;
+import ru.practicum.ewm.model.RollupGranularity;
+import ru.practicum.ewm.model.StatsRangeSegment;
+import ru.practicum.ewm.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class EndpointHitRollupRepository {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO %1$s (app_id, uri_id, bucket, hits)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (uri_id, bucket, app_id) DO UPDATE SET hits = %1$s.hits + EXCLUDED.hits
+            """;
+
+    private static final String SELECT_SKETCHES_SQL = """
+            SELECT app_id, uri_id, bucket, ip_sketch
+            FROM %s
+            WHERE uri_id IN (:uriIds) AND bucket IN (:buckets)
+            """;
+
+    private static final String UPDATE_SKETCH_SQL = """
+            UPDATE %s SET ip_sketch = ?
+            WHERE uri_id = ? AND bucket = ? AND app_id = ?
+            """;
+
+    private static final String LOCK_WATERMARK_SQL = """
+            SELECT watermark FROM rollup_watermark WHERE name = 'endpoint_hit_rollup' FOR UPDATE
+            """;
+
+    private static final String UPDATE_WATERMARK_SQL = """
+            UPDATE rollup_watermark SET watermark = ? WHERE name = 'endpoint_hit_rollup'
+            """;
+
+    private static final String SNAPSHOT_XMIN_SQL = """
+            SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint
+            """;
+
+    private static final String NEXT_WRITTEN_XID_SQL = """
+            SELECT written_xid::text::bigint
+            FROM endpoint_hit
+            WHERE written_xid >= CAST(CAST(:after AS text) AS xid8)
+              AND written_xid < CAST(CAST(:before AS text) AS xid8)
+            ORDER BY written_xid
+            LIMIT 1
+            """;
+
+    private static final String SELECT_WRITTEN_SQL = """
+            SELECT app_id, uri_id, ip, timestamp
+            FROM endpoint_hit
+            WHERE written_xid >= CAST(CAST(:after AS text) AS xid8)
+              AND written_xid < CAST(CAST(:before AS text) AS xid8)
+            """;
+
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparingInt(RollupKey::uriId)
+            .thenComparing(RollupKey::bucket)
+            .thenComparingInt(RollupKey::appId);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StreamingQueryTemplate streamingQueryTemplate;
+
+    // Отметка фонового обновления агрегатов; строка блокируется до конца транзакции, поэтому экземпляры сервиса
+    // обновляют агрегаты по очереди
+    public long lockWatermark() {
+        return jdbcTemplate.getJdbcTemplate().queryForObject(LOCK_WATERMARK_SQL, Long.class);
+    }
+
+    public void saveWatermark(long watermark) {
+        jdbcTemplate.getJdbcTemplate().update(UPDATE_WATERMARK_SQL, watermark);
+    }
+
+    // Самая старая незавершенная транзакция: посещения транзакций с меньшими идентификаторами уже зафиксированы или откатаны
+    public long findSnapshotXmin() {
+        return jdbcTemplate.getJdbcTemplate().queryForObject(SNAPSHOT_XMIN_SQL, Long.class);
+    }
+
+    // Наименьшая транзакция записи посещений в [after, before); null, если посещений в этом интервале нет
+    public Long findNextWrittenXid(long after, long before) {
+        List<Long> xids = jdbcTemplate.queryForList(NEXT_WRITTEN_XID_SQL, xidRangeParams(after, before), Long.class);
+        return xids.isEmpty() ? null : xids.get(0);
+    }
+
+    // Посещения, записанные транзакциями из [after, before)
+    public List<EndpointHit> findWritten(long after, long before) {
+        return jdbcTemplate.query(SELECT_WRITTEN_SQL, xidRangeParams(after, before), (rs, rowNum) -> {
+            EndpointHit endpointHit = new EndpointHit();
+            endpointHit.setAppId(rs.getInt("app_id"));
+            endpointHit.setUriId(rs.getInt("uri_id"));
+            endpointHit.setIp(rs.getBytes("ip"));
+            endpointHit.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+            return endpointHit;
+        });
+    }
+
+    // Инкрементальное обновление агрегатов всех гранулярностей по пачке новых посещений
+    public void incrementHits(List<EndpointHit> endpointHits) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            // ключи упорядочены, чтобы параллельные пачки блокировали строки в одном порядке
+            Map<RollupKey, RollupDelta> deltas = new TreeMap<>(KEY_ORDER);
+            for (EndpointHit endpointHit : endpointHits) {
+                RollupKey key = new RollupKey(endpointHit.getAppId(), endpointHit.getUriId(),
+                        granularity.floor(endpointHit.getTimestamp()));
+                RollupDelta delta = deltas.computeIfAbsent(key, k -> new RollupDelta(granularity.isSketched()));
+                delta.add(endpointHit.getIp());
+            }
+
+            jdbcTemplate.getJdbcTemplate().batchUpdate(UPSERT_SQL.formatted(granularity.getTableName()),
+                    deltas.entrySet(), deltas.size(), (ps, entry) -> {
+                        ps.setInt(1, entry.getKey().appId());
+                        ps.setInt(2, entry.getKey().uriId());
+                        ps.setTimestamp(3, Timestamp.valueOf(entry.getKey().bucket()));
+                        ps.setLong(4, entry.getValue().hits);
+                    });
+
+            if (granularity.isSketched()) {
+                mergeIpSketches(granularity, deltas);
+            }
+        }
+    }
+
+    // Статистика посещений (без учета уникальности ip): агрегаты для покрытых частей диапазона и исходные посещения для краев
+    public List<HitStats> findStats(List<Integer> uriIds, List<StatsRangeSegment> segments) {
+        if (segments.isEmpty() || (uriIds != null && uriIds.isEmpty())) {
+            return List.of();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        return jdbcTemplate.query(statsSql(uriIds, segments, params), params,
+                (rs, rowNum) -> new HitStats(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    // То же, что findStats, но строки передаются consumer по мере чтения из курсора (вызывать в транзакции)
+    public void streamStats(List<Integer> uriIds, List<StatsRangeSegment> segments, Consumer<HitStats> consumer) {
+        if (segments.isEmpty() || (uriIds != null && uriIds.isEmpty())) {
+            return;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        streamingQueryTemplate.query(statsSql(uriIds, segments, params), params,
+                rs -> consumer.accept(new HitStats(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits"))));
+    }
+
+    private String statsSql(List<Integer> uriIds, List<StatsRangeSegment> segments, MapSqlParameterSource params) {
+        String uriFilter = uriFilter(uriIds, params);
+
+        StringJoiner parts = new StringJoiner(" UNION ALL ");
+        for (int i = 0; i < segments.size(); i++) {
+            StatsRangeSegment segment = segments.get(i);
+            addRangeParams(params, segment, i);
+            if (segment.isRaw()) {
+                parts.add("SELECT app_id, uri_id, COUNT(*) AS hits FROM endpoint_hit WHERE timestamp >= :from" + i
+                        + " AND timestamp < :to" + i + uriFilter + " GROUP BY app_id, uri_id");
+            } else {
+                parts.add("SELECT app_id, uri_id, hits FROM " + segment.granularity().getTableName()
+                        + " WHERE bucket >= :from" + i + " AND bucket < :to" + i + uriFilter);
+            }
+        }
+
+        return "SELECT app_id, uri_id, SUM(hits) AS hits FROM (" + parts + ") s GROUP BY app_id, uri_id ORDER BY hits DESC";
+    }
+
+    // Приближенная статистика уникальных посещений: объединение скетчей HyperLogLog агрегатов и ip с краев диапазона
+    public List<HitStats> findApproximateUniqueStats(List<Integer> uriIds, List<StatsRangeSegment> segments) {
+        if (segments.isEmpty() || (uriIds != null && uriIds.isEmpty())) {
+            return List.of();
+        }
+
+        Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+        for (StatsRangeSegment segment : segments) {
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            String uriFilter = uriFilter(uriIds, params);
+            addRangeParams(params, segment, 0);
+            if (segment.isRaw()) {
+                String sql = "SELECT DISTINCT app_id, uri_id, ip FROM endpoint_hit WHERE timestamp >= :from0 AND timestamp < :to0"
+                        + uriFilter;
+                jdbcTemplate.query(sql, params, rs -> {
+                    sketches.computeIfAbsent(new AppUri(rs.getInt("app_id"), rs.getInt("uri_id")), k -> new HyperLogLog())
+                            .add(rs.getBytes("ip"));
+                });
+            } else {
+                String sql = "SELECT app_id, uri_id, ip_sketch FROM " + segment.granularity().getTableName()
+                        + " WHERE bucket >= :from0 AND bucket < :to0" + uriFilter;
+                jdbcTemplate.query(sql, params, rs -> {
+                    sketches.computeIfAbsent(new AppUri(rs.getInt("app_id"), rs.getInt("uri_id")), k -> new HyperLogLog())
+                            .merge(HyperLogLog.fromBytes(rs.getBytes("ip_sketch")));
+                });
+            }
+        }
+
+        return sketches.entrySet().stream()
+                .map(entry -> new HitStats(entry.getKey().appId(), entry.getKey().uriId(), entry.getValue().estimate()))
+                .sorted(Comparator.comparingLong(HitStats::hits).reversed())
+                .toList();
+    }
+
+    // Строки агрегатов уже заблокированы upsert-ом в текущей транзакции, а агрегаты обновляет только фоновое задание
+    // под блокировкой отметки, поэтому чтение-слияние-запись скетча безопасно
+    private void mergeIpSketches(RollupGranularity granularity, Map<RollupKey, RollupDelta> deltas) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("uriIds", deltas.keySet().stream().map(RollupKey::uriId).distinct().toList())
+                .addValue("buckets", deltas.keySet().stream().map(key -> Timestamp.valueOf(key.bucket())).distinct().toList());
+        jdbcTemplate.query(SELECT_SKETCHES_SQL.formatted(granularity.getTableName()), params, rs -> {
+            RollupKey key = new RollupKey(rs.getInt("app_id"), rs.getInt("uri_id"),
+                    rs.getTimestamp("bucket").toLocalDateTime());
+            RollupDelta delta = deltas.get(key);
+            if (delta != null) {
+                delta.sketch.merge(HyperLogLog.fromBytes(rs.getBytes("ip_sketch")));
+            }
+        });
+
+        jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_SKETCH_SQL.formatted(granularity.getTableName()),
+                deltas.entrySet(), deltas.size(), (ps, entry) -> {
+                    ps.setBytes(1, entry.getValue().sketch.toBytes());
+                    ps.setInt(2, entry.getKey().uriId());
+                    ps.setTimestamp(3, Timestamp.valueOf(entry.getKey().bucket()));
+                    ps.setInt(4, entry.getKey().appId());
+                });
+    }
+
+    private MapSqlParameterSource xidRangeParams(long after, long before) {
+        return new MapSqlParameterSource()
+                .addValue("after", String.valueOf(after))
+                .addValue("before", String.valueOf(before));
+    }
+
+    private String uriFilter(List<Integer> uriIds, MapSqlParameterSource params) {
+        if (uriIds == null) {
+            return "";
+        }
+        params.addValue("uriIds", uriIds);
+        return " AND uri_id IN (:uriIds)";
+    }
+
+    private void addRangeParams(MapSqlParameterSource params, StatsRangeSegment segment, int index) {
+        params.addValue("from" + index, Timestamp.valueOf(segment.from()));
+        params.addValue("to" + index, Timestamp.valueOf(segment.to()));
+    }
+
+    private record RollupKey(int appId, int uriId, LocalDateTime bucket) {
+    }
+
+    private record AppUri(int appId, int uriId) {
+    }
+
+    private static class RollupDelta {
+        private final HyperLogLog sketch;
+        private long hits;
+
+        RollupDelta(boolean sketched) {
+            this.sketch = sketched ? new HyperLogLog() : null;
+        }
+
+        void add(byte[] ip) {
+            hits++;
+            if (sketch != null) {
+                sketch.add(ip);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.ewm.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.EventViewChangesDto;
+import ru.practicum.ewm.EventViewsDto;
+import ru.practicum.ewm.model.EndpointHit;
+import ru.practicum.ewm.model.UriHitDelta;
+
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Итоги просмотров событий за все время, которые поддерживаются при записи посещений /events/{id}.
+ * Уникальные просмотры берутся из журнала приращений по URI (см. UriHitDeltaRepository), поэтому считаются точно
+ * и без агрегации по диапазону времени при чтении.
+ * changed_xid хранит идентификатор последней изменившей строку транзакции: по нему потребители
+ * забирают только изменившиеся итоги, а границей выборки служит xmin текущего снимка,
+ * т.к. все транзакции с меньшими идентификаторами уже завершены и их изменения видны.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventViewRepository {
+
+    // не больше 18 цифр, чтобы id гарантированно помещался в long: иначе ошибка разбора откатила бы запись всей пачки
+    private static final Pattern EVENT_URI = Pattern.compile("/events/(\\d{1,18})");
+
+    private static final String INCREMENT_SQL = """
+            INSERT INTO event_view_totals (event_id, hits, unique_hits, changed_xid)
+            SELECT d.event_id, d.hits, d.unique_hits, pg_current_xact_id()
+            FROM unnest(?::bigint[], ?::bigint[], ?::bigint[]) AS d(event_id, hits, unique_hits)
+            ON CONFLICT (event_id) DO UPDATE SET hits = event_view_totals.hits + EXCLUDED.hits,
+                unique_hits = event_view_totals.unique_hits + EXCLUDED.unique_hits,
+                changed_xid = EXCLUDED.changed_xid
+            """;
+
+    private static final String SELECT_SQL = """
+            SELECT event_id, hits, unique_hits
+            FROM event_view_totals
+            WHERE event_id IN (:eventIds)
+            """;
+
+    private static final String WATERMARK_SQL = """
+            SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint
+            """;
+
+    private static final String SELECT_CHANGED_SQL = """
+            SELECT event_id, hits, unique_hits
+            FROM event_view_totals
+            WHERE changed_xid >= CAST(CAST(:after AS text) AS xid8)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Итоги событий пополняются приращениями их URI /events/{id}, уже посчитанными по журналу uri_hit_delta
+    public void incrementViews(List<EndpointHit> endpointHits, List<UriHitDelta> deltas) {
+        Map<Integer, Long> eventIdsByUriId = new HashMap<>();
+        for (EndpointHit endpointHit : endpointHits) {
+            Matcher matcher = EVENT_URI.matcher(endpointHit.getUri());
+            if (matcher.matches()) {
+                eventIdsByUriId.put(endpointHit.getUriId(), Long.parseLong(matcher.group(1)));
+            }
+        }
+
+        // упорядоченные ключи задают единый порядок блокировок для параллельных пачек
+        Map<Long, UriHitDelta> eventDeltas = new TreeMap<>();
+        for (UriHitDelta delta : deltas) {
+            Long eventId = eventIdsByUriId.get(delta.uriId());
+            if (eventId != null) {
+                eventDeltas.put(eventId, delta);
+            }
+        }
+        if (eventDeltas.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.getJdbcTemplate().update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INCREMENT_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", eventDeltas.keySet().toArray(Long[]::new)));
+            ps.setArray(2, connection.createArrayOf("bigint", eventDeltas.values().stream().map(UriHitDelta::hits).toArray(Long[]::new)));
+            ps.setArray(3, connection.createArrayOf("bigint", eventDeltas.values().stream().map(UriHitDelta::uniqueHits).toArray(Long[]::new)));
+            return ps;
+        });
+    }
+
+    public Map<Long, EventViewsDto> findByEventIds(List<Long> eventIds) {
+        Map<Long, EventViewsDto> views = new HashMap<>();
+        if (eventIds.isEmpty()) {
+            return views;
+        }
+
+        jdbcTemplate.query(SELECT_SQL, new MapSqlParameterSource("eventIds", eventIds), rs -> {
+            views.put(rs.getLong("event_id"), new EventViewsDto(rs.getLong("hits"), rs.getLong("unique_hits")));
+        });
+        return views;
+    }
+
+    // Итоги, изменившиеся транзакциями с идентификатором не меньше after; повторная выдача части строк безопасна,
+    // т.к. передаются итоговые значения, а не приращения
+    public EventViewChangesDto findChangedSince(long after) {
+        // отметка берется до выборки: изменения, зафиксированные между запросами, попадут и в следующую выдачу
+        long watermark = jdbcTemplate.getJdbcTemplate().queryForObject(WATERMARK_SQL, Long.class);
+        Map<Long, EventViewsDto> views = new HashMap<>();
+        jdbcTemplate.query(SELECT_CHANGED_SQL, new MapSqlParameterSource("after", String.valueOf(after)), rs -> {
+            views.put(rs.getLong("event_id"), new EventViewsDto(rs.getLong("hits"), rs.getLong("unique_hits")));
+        });
+        return new EventViewChangesDto(views, watermark);
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.ewm.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.ViewStatsOutputDto;
+import ru.practicum.ewm.model.EndpointHit;
+import ru.practicum.ewm.model.HitStats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Словари app и uri: в endpoint_hit и агрегатах хранятся целочисленные идентификаторы вместо строк.
+ * Соответствия идентификаторов и значений неизменны, поэтому кэшируются в памяти без ограничения срока,
+ * а в БД обращаемся только за значениями, которых еще нет в кэше.
+ * Новые значения добавляются вне транзакции записи посещений, в автофиксации на своем соединении:
+ * пишущий поток не держит два соединения пула одновременно, а кэшируются только зафиксированные идентификаторы.
+ */
+@Repository
+public class HitDictionary {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Dictionary apps = new Dictionary("stats_app", "app");
+    private final Dictionary uris = new Dictionary("stats_uri", "uri");
+
+    public HitDictionary(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Проставление посещениям идентификаторов app и uri с добавлением новых значений в словари; вызывать вне транзакции
+    public void encode(List<EndpointHit> endpointHits) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Словари посещений пополняются только вне транзакции");
+        }
+        Map<String, Integer> appIds = apps.resolve(endpointHits.stream().map(EndpointHit::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = uris.resolve(endpointHits.stream().map(EndpointHit::getUri).collect(Collectors.toSet()));
+        for (EndpointHit endpointHit : endpointHits) {
+            endpointHit.setAppId(appIds.get(endpointHit.getApp()));
+            endpointHit.setUriId(uriIds.get(endpointHit.getUri()));
+        }
+    }
+
+    // Идентификаторы известных URI; URI, по которым не было посещений, в словаре отсутствуют и пропускаются
+    public List<Integer> findUriIds(List<String> uriValues) {
+        return List.copyOf(uris.find(uriValues).values());
+    }
+
+    // Раскодирование статистики в DTO с сохранением порядка строк
+    public List<ViewStatsOutputDto> decode(List<HitStats> stats) {
+        Map<Integer, String> appValues = apps.values(stats.stream().map(HitStats::appId).collect(Collectors.toSet()));
+        Map<Integer, String> uriValues = uris.values(stats.stream().map(HitStats::uriId).collect(Collectors.toSet()));
+        return stats.stream()
+                .map(row -> new ViewStatsOutputDto(appValues.get(row.appId()), uriValues.get(row.uriId()), row.hits()))
+                .toList();
+    }
+
+    // Раскодирование одной строки при потоковой выдаче; в БД обращаемся, только если значения нет в кэше
+    public ViewStatsOutputDto decode(HitStats row) {
+        return decode(List.of(row)).get(0);
+    }
+
+    // Значения URI по идентификаторам для выдачи приращений посещений
+    public Map<Integer, String> findUris(Collection<Integer> uriIds) {
+        return uris.values(uriIds);
+    }
+
+    private class Dictionary {
+        private final String table;
+        private final String column;
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+        Dictionary(String table, String column) {
+            this.table = table;
+            this.column = column;
+        }
+
+        Map<String, Integer> resolve(Set<String> keys) {
+            Map<String, Integer> result = find(keys);
+            if (result.size() < keys.size()) {
+                // сортировка задает единый порядок блокировок для параллельных вставок одинаковых значений
+                List<String> missing = keys.stream().filter(key -> !result.containsKey(key)).sorted().toList();
+                // вставка в автофиксации: после нее идентификаторы можно кэшировать, даже если запись посещений откатится
+                jdbcTemplate.getJdbcTemplate().batchUpdate(
+                        "INSERT INTO " + table + " (" + column + ") VALUES (?) ON CONFLICT DO NOTHING",
+                        missing, missing.size(), (ps, value) -> ps.setString(1, value));
+                result.putAll(load(column + " IN (:keys)", missing));
+            }
+            return result;
+        }
+
+        Map<String, Integer> find(Collection<String> keys) {
+            Map<String, Integer> result = new HashMap<>();
+            List<String> missing = new ArrayList<>();
+            for (String key : keys) {
+                Integer id = ids.get(key);
+                if (id != null) {
+                    result.put(key, id);
+                } else {
+                    missing.add(key);
+                }
+            }
+            if (!missing.isEmpty()) {
+                result.putAll(load(column + " IN (:keys)", missing));
+            }
+            return result;
+        }
+
+        Map<Integer, String> values(Collection<Integer> keys) {
+            Map<Integer, String> result = new HashMap<>();
+            List<Integer> missing = new ArrayList<>();
+            for (Integer key : keys) {
+                String value = values.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                } else {
+                    missing.add(key);
+                }
+            }
+            if (!missing.isEmpty()) {
+                load("id IN (:keys)", missing).forEach((value, id) -> result.put(id, value));
+            }
+            return result;
+        }
+
+        private Map<String, Integer> load(String condition, Collection<?> keys) {
+            Map<String, Integer> loaded = new HashMap<>();
+            jdbcTemplate.query("SELECT id, " + column + " FROM " + table + " WHERE " + condition,
+                    new MapSqlParameterSource("keys", keys), rs -> {
+                        int id = rs.getInt("id");
+                        String value = rs.getString(column);
+                        ids.put(value, id);
+                        values.put(id, value);
+                        loaded.put(value, id);
+                    });
+            return loaded;
+        }
+    }
+}
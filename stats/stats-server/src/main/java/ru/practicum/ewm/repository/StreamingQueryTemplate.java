@@ -0,0 +1,32 @@
+package ru.practicum.ewm.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Выполнение запросов с построчной обработкой результата через курсор.
+ * Драйвер PostgreSQL читает результат порциями по FETCH_SIZE строк только внутри транзакции (autocommit = false),
+ * поэтому вызывать нужно из транзакции, иначе весь результат будет загружен в память.
+ */
+@Component
+public class StreamingQueryTemplate {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public StreamingQueryTemplate(DataSource dataSource) {
+        JdbcTemplate streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(streamingJdbcTemplate);
+    }
+
+    public void query(String sql, SqlParameterSource params, RowCallbackHandler rowCallbackHandler) {
+        jdbcTemplate.query(sql, params, rowCallbackHandler);
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.ewm.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.model.EndpointHit;
+import ru.practicum.ewm.model.UriHitDelta;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Журнал приращений посещений по URI, который пополняется при записи каждой пачки посещений.
+ * uri_visitor хранит уже учтенные пары (URI, ip), поэтому unique_hits в журнале - точное число новых посетителей.
+ * Строки журнала помечаются идентификатором транзакции (changed_xid); выборка ограничена полуинтервалом
+ * [after, xmin текущего снимка), поэтому каждое приращение попадает ровно в одну выдачу.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UriHitDeltaRepository {
+
+    // Новые посетители определяются вставкой без конфликта, и только они увеличивают unique_hits
+    private static final String RECORD_SQL = """
+            WITH new_visitors AS (
+                INSERT INTO uri_visitor (uri_id, ip)
+                SELECT v.uri_id, decode(v.ip, 'hex')
+                FROM unnest(?::integer[], ?::text[]) AS v(uri_id, ip)
+                ON CONFLICT DO NOTHING
+                RETURNING uri_id
+            ), delta AS (
+                SELECT h.uri_id, h.hits, COUNT(n.uri_id) AS unique_hits
+                FROM unnest(?::integer[], ?::bigint[]) AS h(uri_id, hits)
+                LEFT JOIN new_visitors n ON n.uri_id = h.uri_id
+                GROUP BY h.uri_id, h.hits
+            )
+            INSERT INTO uri_hit_delta (uri_id, hits, unique_hits, changed_xid, created)
+            SELECT uri_id, hits, unique_hits, pg_current_xact_id(), now() FROM delta
+            RETURNING uri_id, hits, unique_hits
+            """;
+
+    private static final String WATERMARK_SQL = """
+            SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint
+            """;
+
+    private static final String SELECT_SINCE_SQL = """
+            SELECT uri_id, SUM(hits) AS hits, SUM(unique_hits) AS unique_hits
+            FROM uri_hit_delta
+            WHERE changed_xid >= CAST(CAST(:after AS text) AS xid8)
+              AND changed_xid < CAST(CAST(:watermark AS text) AS xid8)
+            GROUP BY uri_id
+            """;
+
+    private static final String PURGE_SQL = """
+            DELETE FROM uri_hit_delta WHERE created < ?
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Запись приращений пачки посещений; возвращает приращения по каждому URI пачки
+    public List<UriHitDelta> record(List<EndpointHit> endpointHits) {
+        // упорядоченные ключи задают единый порядок блокировок для параллельных пачек
+        Map<Integer, Long> hits = new TreeMap<>();
+        TreeSet<Visitor> visitors = new TreeSet<>();
+        HexFormat hex = HexFormat.of();
+        for (EndpointHit endpointHit : endpointHits) {
+            hits.merge(endpointHit.getUriId(), 1L, Long::sum);
+            visitors.add(new Visitor(endpointHit.getUriId(), hex.formatHex(endpointHit.getIp())));
+        }
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        return jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(RECORD_SQL);
+            ps.setArray(1, connection.createArrayOf("integer", visitors.stream().map(Visitor::uriId).toArray(Integer[]::new)));
+            ps.setArray(2, connection.createArrayOf("text", visitors.stream().map(Visitor::ip).toArray(String[]::new)));
+            ps.setArray(3, connection.createArrayOf("integer", hits.keySet().toArray(Integer[]::new)));
+            ps.setArray(4, connection.createArrayOf("bigint", hits.values().toArray(Long[]::new)));
+            return ps;
+        }, (rs, rowNum) -> new UriHitDelta(rs.getInt("uri_id"), rs.getLong("hits"), rs.getLong("unique_hits")));
+    }
+
+    // Суммарные приращения по URI после отметки after и новая отметка для следующего запроса
+    public Changes findSince(long after) {
+        // отметка берется до выборки: все транзакции с меньшими идентификаторами к этому моменту завершены
+        long watermark = jdbcTemplate.getJdbcTemplate().queryForObject(WATERMARK_SQL, Long.class);
+        if (watermark <= after) {
+            return new Changes(List.of(), watermark);
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("after", String.valueOf(after))
+                .addValue("watermark", String.valueOf(watermark));
+        List<UriHitDelta> deltas = jdbcTemplate.query(SELECT_SINCE_SQL, params,
+                (rs, rowNum) -> new UriHitDelta(rs.getInt("uri_id"), rs.getLong("hits"), rs.getLong("unique_hits")));
+        return new Changes(deltas, watermark);
+    }
+
+    public int purgeOlderThan(LocalDateTime threshold) {
+        return jdbcTemplate.getJdbcTemplate().update(PURGE_SQL, Timestamp.valueOf(threshold));
+    }
+
+    public record Changes(List<UriHitDelta> deltas, long watermark) {
+    }
+
+    private record Visitor(int uriId, String ip) implements Comparable<Visitor> {
+        @Override
+        public int compareTo(Visitor other) {
+            int result = Integer.compare(uriId, other.uriId);
+            return result != 0 ? result : ip.compareTo(other.ip);
+        }
+    }
+}
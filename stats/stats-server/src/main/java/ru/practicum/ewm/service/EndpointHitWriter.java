@@ -0,0 +1,42 @@
+package ru.practicum.ewm.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.model.EndpointHit;
+import ru.practicum.ewm.model.UriHitDelta;
+import ru.practicum.ewm.repository.EndpointHitRepository;
+import ru.practicum.ewm.repository.EventViewRepository;
+import ru.practicum.ewm.repository.HitDictionary;
+import ru.practicum.ewm.repository.UriHitDeltaRepository;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class EndpointHitWriter {
+
+    private final EndpointHitRepository endpointHitRepository;
+    private final UriHitDeltaRepository uriHitDeltaRepository;
+    private final EventViewRepository eventViewRepository;
+    private final HitDictionary hitDictionary;
+    private final TransactionTemplate transactionTemplate;
+
+    // Запись пачки посещений, итогов событий и журнала приращений в одной транзакции;
+    // словари пополняются до ее начала, поэтому запись занимает одно соединение пула.
+    // Агрегаты по времени обновляет RollupAggregator в фоне
+    public void write(List<EndpointHit> endpointHits) {
+        if (endpointHits.isEmpty()) {
+            return;
+        }
+        hitDictionary.encode(endpointHits);
+        transactionTemplate.executeWithoutResult(status -> writeEncoded(endpointHits));
+    }
+
+    // Запись посещений с уже проставленными идентификаторами словарей; вызывать в транзакции
+    public void writeEncoded(List<EndpointHit> endpointHits) {
+        endpointHitRepository.saveAllInBatch(endpointHits);
+        List<UriHitDelta> deltas = uriHitDeltaRepository.record(endpointHits);
+        eventViewRepository.incrementViews(endpointHits, deltas);
+    }
+}
@@ -0,0 +1,165 @@
+package ru.practicum.ewm.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.config.PartitionInterval;
+import ru.practicum.ewm.config.PartitionProperties;
+import ru.practicum.ewm.config.RetentionAction;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Обслуживание секций таблицы endpoint_hit, секционированной по timestamp:
+ * заранее создает секции на premake интервалов вперед и отсоединяет или удаляет секции старше retention.
+ * Посещения, попавшие в секцию по умолчанию до создания нужной секции, переносятся в нее при создании;
+ * для прошлых интервалов, по которым в секции по умолчанию остались посещения, секции создаются задним числом,
+ * чтобы на эти посещения тоже распространялась политика хранения.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "stats.storage.partitioning", name = "enabled", havingValue = "true")
+public class HitPartitionMaintainer {
+
+    private static final String PARENT_TABLE = "endpoint_hit";
+    private static final String DEFAULT_PARTITION = "endpoint_hit_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("endpoint_hit_p(\\d{6}|\\d{8})");
+    private static final DateTimeFormatter DAILY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTHLY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final PartitionProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${stats.storage.partitioning.maintenance-interval:PT1H}")
+    public void maintain() {
+        try {
+            createUpcomingPartitions();
+            createBackfillPartitions();
+            applyRetention();
+        } catch (DataAccessException e) {
+            log.error("Ошибка при обслуживании секций таблицы {}", PARENT_TABLE, e);
+        }
+    }
+
+    private void createUpcomingPartitions() {
+        LocalDate from = floor(LocalDate.now());
+        for (int i = 0; i <= properties.getPremake(); i++) {
+            LocalDate to = next(from);
+            createPartition(from, to);
+            from = to;
+        }
+    }
+
+    // Выносит из секции по умолчанию посещения прошлых интервалов, начиная с самых старых; пустые интервалы пропускаются
+    private void createBackfillPartitions() {
+        Timestamp current = Timestamp.valueOf(floor(LocalDate.now()).atStartOfDay());
+        Timestamp oldest;
+        while ((oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM " + DEFAULT_PARTITION + " WHERE timestamp < ?",
+                Timestamp.class, current)) != null) {
+            LocalDate from = floor(oldest.toLocalDateTime().toLocalDate());
+            if (partitionExists(partitionName(from))) {
+                log.warn("В секции по умолчанию остались посещения интервала существующей секции {}", partitionName(from));
+                return;
+            }
+            createPartition(from, next(from));
+        }
+    }
+
+    private void createPartition(LocalDate from, LocalDate to) {
+        String partition = partitionName(from);
+        if (partitionExists(partition)) {
+            return;
+        }
+
+        String bounds = "FROM ('" + from.atStartOfDay() + "') TO ('" + to.atStartOfDay() + "')";
+        transactionTemplate.executeWithoutResult(status -> {
+            if (hasRowsInDefaultPartition(from, to)) {
+                // секция по умолчанию уже содержит посещения этого интервала: переносим их в новую секцию до присоединения
+                jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + PARENT_TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+                int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                                + " WHERE timestamp >= ? AND timestamp < ? RETURNING *) INSERT INTO " + partition + " SELECT * FROM moved",
+                        Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay()));
+                jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " ATTACH PARTITION " + partition + " FOR VALUES " + bounds);
+                log.info("Создана секция {} с {} посещениями, перенесенными из секции по умолчанию", partition, moved);
+            } else {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + PARENT_TABLE + " FOR VALUES " + bounds);
+                log.info("Создана секция {}", partition);
+            }
+        });
+    }
+
+    private void applyRetention() {
+        if (properties.getRetention() == null) {
+            return;
+        }
+
+        LocalDateTime threshold = LocalDateTime.now().minus(properties.getRetention());
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'endpoint_hit'::regclass
+                """, String.class);
+
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            // секция устарела, только если устарели все посещения в ней, т.е. ее верхняя граница
+            String suffix = matcher.group(1);
+            LocalDate upperBound = suffix.length() == 8
+                    ? LocalDate.parse(suffix, DAILY_SUFFIX).plusDays(1)
+                    : LocalDate.parse(suffix + "01", DAILY_SUFFIX).plusMonths(1);
+            if (upperBound.atStartOfDay().isAfter(threshold)) {
+                continue;
+            }
+
+            if (properties.getRetentionAction() == RetentionAction.DROP) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Удалена устаревшая секция {}", partition);
+            } else {
+                String archive = partition.replace("endpoint_hit_p", "endpoint_hit_archive_p");
+                jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO " + archive);
+                log.info("Устаревшая секция {} отсоединена и сохранена как {}", partition, archive);
+            }
+        }
+    }
+
+    private boolean partitionExists(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition));
+    }
+
+    private boolean hasRowsInDefaultPartition(LocalDate from, LocalDate to) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE timestamp >= ? AND timestamp < ?)",
+                Boolean.class, Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay())));
+    }
+
+    private LocalDate floor(LocalDate date) {
+        return properties.getInterval() == PartitionInterval.DAILY ? date : date.withDayOfMonth(1);
+    }
+
+    private LocalDate next(LocalDate from) {
+        return properties.getInterval() == PartitionInterval.DAILY ? from.plusDays(1) : from.plusMonths(1);
+    }
+
+    private String partitionName(LocalDate from) {
+        DateTimeFormatter suffix = properties.getInterval() == PartitionInterval.DAILY ? DAILY_SUFFIX : MONTHLY_SUFFIX;
+        return "endpoint_hit_p" + from.format(suffix);
+    }
+}
@@ -0,0 +1,121 @@
+package ru.practicum.ewm.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.exception.BadRequestException;
+import ru.practicum.ewm.mapper.EndpointHitMapper;
+import ru.practicum.ewm.model.EndpointHit;
+import ru.practicum.ewm.repository.HitDictionary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перенос посещений из исходной несекционированной таблицы, которую schema.sql переименовывает в endpoint_hit_legacy.
+ * Строки переносятся пачками через словари и общий путь записи, поэтому попадают в агрегаты, итоги событий
+ * и журнал приращений так же, как новые посещения. Пачка удаляется из старой таблицы в транзакции ее записи,
+ * поэтому прерванный перенос продолжается с того же места; опустевшая таблица удаляется.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LegacyHitMigrator {
+
+    private static final String LEGACY_TABLE = "endpoint_hit_legacy";
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String SELECT_BATCH_SQL = """
+            SELECT id, app, uri, ip, timestamp
+            FROM endpoint_hit_legacy
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+    private static final String DELETE_BATCH_SQL = """
+            DELETE FROM endpoint_hit_legacy WHERE id IN (:ids) RETURNING id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HitDictionary hitDictionary;
+    private final EndpointHitWriter endpointHitWriter;
+
+    // Сразу после запуска; повторный запуск после ошибки продолжает перенос, а без старой таблицы ничего не делает
+    @Scheduled(initialDelay = 0, fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void migrate() {
+        try {
+            if (!legacyTableExists()) {
+                return;
+            }
+            log.info("Начат перенос посещений из таблицы {}", LEGACY_TABLE);
+            long moved = 0;
+            int batch;
+            while ((batch = migrateBatch()) > 0) {
+                moved += batch;
+                if (moved % (BATCH_SIZE * 100L) < batch) {
+                    log.info("Перенесено {} посещений из таблицы {}", moved, LEGACY_TABLE);
+                }
+            }
+            jdbcTemplate.getJdbcTemplate().execute("DROP TABLE IF EXISTS " + LEGACY_TABLE);
+            log.info("Перенос посещений завершен: перенесено {}, таблица {} удалена", moved, LEGACY_TABLE);
+        } catch (DataAccessException e) {
+            log.error("Ошибка при переносе посещений из таблицы {}", LEGACY_TABLE, e);
+        }
+    }
+
+    // Словари пополняются до транзакции записи; записываются только строки, которые удалил именно этот вызов
+    private int migrateBatch() {
+        Map<Long, EndpointHit> endpointHits = new LinkedHashMap<>();
+        jdbcTemplate.query(SELECT_BATCH_SQL, new MapSqlParameterSource("limit", BATCH_SIZE), rs -> {
+            EndpointHit endpointHit = new EndpointHit();
+            endpointHit.setApp(rs.getString("app"));
+            endpointHit.setUri(rs.getString("uri"));
+            endpointHit.setIp(toIpBytes(rs.getString("ip")));
+            endpointHit.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+            endpointHits.put(rs.getLong("id"), endpointHit);
+        });
+        if (endpointHits.isEmpty()) {
+            return 0;
+        }
+
+        hitDictionary.encode(List.copyOf(endpointHits.values()));
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Long> deleted = new HashSet<>(jdbcTemplate.queryForList(DELETE_BATCH_SQL,
+                    new MapSqlParameterSource("ids", endpointHits.keySet()), Long.class));
+            List<EndpointHit> batch = endpointHits.entrySet().stream()
+                    .filter(entry -> deleted.contains(entry.getKey()))
+                    .map(Map.Entry::getValue)
+                    .toList();
+            if (!batch.isEmpty()) {
+                endpointHitWriter.writeEncoded(batch);
+            }
+        });
+        return endpointHits.size();
+    }
+
+    // Исходная таблица принимала любые строки; не являющиеся IP-адресом сохраняются байтами UTF-8,
+    // чтобы посещение не потерялось и разные значения не слились при подсчете уникальных посетителей
+    private byte[] toIpBytes(String ip) {
+        try {
+            return EndpointHitMapper.toIpBytes(ip);
+        } catch (BadRequestException e) {
+            return ip.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private boolean legacyTableExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, LEGACY_TABLE));
+    }
+}
@@ -0,0 +1,62 @@
+package ru.practicum.ewm.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.config.RollupProperties;
+import ru.practicum.ewm.model.EndpointHit;
+import ru.practicum.ewm.repository.EndpointHitRollupRepository;
+
+import java.util.List;
+
+/**
+ * Фоновое обновление агрегатов по времени (минута, час, день, месяц) вне транзакции записи посещений.
+ * Посещения помечаются транзакцией записи (written_xid); задание учитывает посещения транзакций между сохраненной
+ * отметкой и xmin текущего снимка, т.е. только уже завершенных, и сдвигает отметку в той же транзакции,
+ * поэтому каждое посещение попадает в агрегаты ровно один раз. Агрегаты отстают от записи не больше чем на interval.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RollupAggregator {
+
+    private final RollupProperties properties;
+    private final EndpointHitRollupRepository endpointHitRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${stats.rollup.interval:PT5S}")
+    public void aggregate() {
+        try {
+            while (Boolean.TRUE.equals(transactionTemplate.execute(status -> aggregateStep()))) {
+                log.debug("Агрегаты отстают от записи посещений, продолжаем обновление");
+            }
+        } catch (DataAccessException e) {
+            log.error("Ошибка при обновлении агрегатов посещений", e);
+        }
+    }
+
+    // Один шаг обновления не больше чем по maxTransactions транзакциям; true, если учтены не все завершенные транзакции
+    private boolean aggregateStep() {
+        long after = endpointHitRollupRepository.lockWatermark();
+        long xmin = endpointHitRollupRepository.findSnapshotXmin();
+        if (xmin <= after) {
+            return false;
+        }
+
+        // промежутки без посещений пропускаются сразу, чтобы не идти по ним шагами
+        Long next = endpointHitRollupRepository.findNextWrittenXid(after, xmin);
+        if (next == null) {
+            endpointHitRollupRepository.saveWatermark(xmin);
+            return false;
+        }
+        long before = Math.min(xmin, next + properties.getMaxTransactions());
+        List<EndpointHit> endpointHits = endpointHitRollupRepository.findWritten(next, before);
+        endpointHitRollupRepository.incrementHits(endpointHits);
+        endpointHitRollupRepository.saveWatermark(before);
+        log.debug("В агрегаты добавлено {} посещений", endpointHits.size());
+        return before < xmin;
+    }
+}
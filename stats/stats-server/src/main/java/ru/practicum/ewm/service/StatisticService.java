@@ -1,14 +1,28 @@
 package ru.practicum.ewm.service;
 
 import ru.practicum.ewm.EndpointHitInputDto;
+import ru.practicum.ewm.EventViewChangesDto;
+import ru.practicum.ewm.EventViewsDto;
+import ru.practicum.ewm.UriHitChangesDto;
 import ru.practicum.ewm.ViewStatsOutputDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface StatisticService {
 
     void createEndpointHit(EndpointHitInputDto endpointHitInputDto);
 
-    List<ViewStatsOutputDto> getStats(List<String> uris, LocalDateTime start, LocalDateTime end, Boolean unique);
+    void createEndpointHits(List<EndpointHitInputDto> endpointHitInputDtos);
+
+    List<ViewStatsOutputDto> getStats(List<String> uris, LocalDateTime start, LocalDateTime end, Boolean unique, Boolean exact);
+
+    Map<Long, EventViewsDto> getEventViews(List<Long> eventIds);
+
+    EventViewChangesDto getEventViewChanges(long after);
+
+    UriHitChangesDto getHitChanges(long after);
+
+    StatsStream streamStats(List<String> uris, LocalDateTime start, LocalDateTime end, Boolean unique, Boolean exact);
 }
@@ -2,39 +2,151 @@ package ru.practicum.ewm.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.ewm.EndpointHitInputDto;
+import ru.practicum.ewm.EventViewChangesDto;
+import ru.practicum.ewm.EventViewsDto;
+import ru.practicum.ewm.UriHitChangesDto;
+import ru.practicum.ewm.UriHitDeltaDto;
 import ru.practicum.ewm.exception.BadRequestException;
+import ru.practicum.ewm.mapper.EndpointHitMapper;
+import ru.practicum.ewm.model.EndpointHit;
+import ru.practicum.ewm.model.HitStats;
+import ru.practicum.ewm.model.RollupGranularity;
+import ru.practicum.ewm.model.UriHitDelta;
 import ru.practicum.ewm.repository.EndpointHitRepository;
 import ru.practicum.ewm.ViewStatsOutputDto;
-import ru.practicum.ewm.mapper.EndpointHitMapper;
+import ru.practicum.ewm.repository.EndpointHitRollupRepository;
+import ru.practicum.ewm.repository.EventViewRepository;
+import ru.practicum.ewm.repository.HitDictionary;
+import ru.practicum.ewm.repository.UriHitDeltaRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class StatisticServiceImpl implements StatisticService {
 
+    // Агрегаты, из которых собирается ответ на /stats, от самых крупных к самым мелким
+    private static final List<RollupGranularity> HITS_GRANULARITIES = List.of(
+            RollupGranularity.MONTH, RollupGranularity.DAY, RollupGranularity.HOUR, RollupGranularity.MINUTE);
+
+    // Агрегаты со скетчами уникальных ip, от самых крупных к самым мелким
+    private static final List<RollupGranularity> UNIQUE_GRANULARITIES = List.of(
+            RollupGranularity.MONTH, RollupGranularity.DAY, RollupGranularity.HOUR);
+
     private final EndpointHitRepository endpointHitRepository;
+    private final EndpointHitRollupRepository endpointHitRollupRepository;
+    private final EventViewRepository eventViewRepository;
+    private final UriHitDeltaRepository uriHitDeltaRepository;
+    private final HitDictionary hitDictionary;
+    private final EndpointHitWriter endpointHitWriter;
+    private final Optional<WriteBehindHitBuffer> writeBehindHitBuffer;
+    private final PlatformTransactionManager transactionManager;
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void createEndpointHit(EndpointHitInputDto endpointHitInputDto) {
-        endpointHitRepository.save(EndpointHitMapper.toEndpointHit(endpointHitInputDto));
+        createEndpointHits(List.of(endpointHitInputDto));
     }
 
+    // Транзакцией записи управляет EndpointHitWriter: сразу или из буфера отложенной записи
     @Override
-    public List<ViewStatsOutputDto> getStats(List<String> uris, LocalDateTime start, LocalDateTime end, Boolean unique) {
-        if (start == null || end == null || start.isAfter(end)) {
-            throw new BadRequestException("Даты не должны быть пустыми и start должен предшествовать end");
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void createEndpointHits(List<EndpointHitInputDto> endpointHitInputDtos) {
+        // ip разбирается до записи в буфер, чтобы некорректный адрес отклонил запрос, а не пачку в фоне
+        List<EndpointHit> endpointHits = EndpointHitMapper.toEndpointHit(endpointHitInputDtos);
+        writeBehindHitBuffer.ifPresentOrElse(
+                buffer -> buffer.offer(endpointHits),
+                () -> endpointHitWriter.write(endpointHits)
+        );
+    }
+
+    @Override
+    public List<ViewStatsOutputDto> getStats(List<String> uris, LocalDateTime start, LocalDateTime end, Boolean unique, Boolean exact) {
+        checkRange(start, end);
+
+        // end входит в диапазон, а части плана полуоткрыты, поэтому сдвигаем границу на минимальный шаг timestamp в PostgreSQL
+        LocalDateTime endExclusive = end.plus(1, ChronoUnit.MICROS);
+        List<Integer> uriIds = uris == null ? null : hitDictionary.findUriIds(uris);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return List.of();
         }
 
-        if (unique) {
-            return endpointHitRepository.findDistinctIpStats(uris, start, end);
+        List<HitStats> stats;
+        if (!unique) {
+            stats = endpointHitRollupRepository.findStats(uriIds,
+                    StatsRangePlanner.plan(start, endExclusive, HITS_GRANULARITIES));
+        } else if (exact) {
+            stats = endpointHitRepository.findDistinctIpStats(uriIds, start, end);
         } else {
-            return endpointHitRepository.findStats(uris, start, end);
+            stats = endpointHitRollupRepository.findApproximateUniqueStats(uriIds,
+                    StatsRangePlanner.plan(start, endExclusive, UNIQUE_GRANULARITIES));
+        }
+        return hitDictionary.decode(stats);
+    }
+
+    @Override
+    public Map<Long, EventViewsDto> getEventViews(List<Long> eventIds) {
+        return eventViewRepository.findByEventIds(eventIds);
+    }
+
+    @Override
+    public EventViewChangesDto getEventViewChanges(long after) {
+        return eventViewRepository.findChangedSince(after);
+    }
+
+    @Override
+    public UriHitChangesDto getHitChanges(long after) {
+        UriHitDeltaRepository.Changes changes = uriHitDeltaRepository.findSince(after);
+        Map<Integer, String> uris = hitDictionary.findUris(changes.deltas().stream().map(UriHitDelta::uriId).toList());
+        List<UriHitDeltaDto> deltas = changes.deltas().stream()
+                .map(delta -> new UriHitDeltaDto(uris.get(delta.uriId()), delta.hits(), delta.uniqueHits()))
+                .toList();
+        return new UriHitChangesDto(deltas, changes.watermark());
+    }
+
+    // Параметры проверяются сразу, а запрос выполняется в отдельной транзакции при чтении потока
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StatsStream streamStats(List<String> uris, LocalDateTime start, LocalDateTime end, Boolean unique, Boolean exact) {
+        checkRange(start, end);
+
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        LocalDateTime endExclusive = end.plus(1, ChronoUnit.MICROS);
+        return consumer -> readOnlyTransaction.executeWithoutResult(status -> {
+            List<Integer> uriIds = uris == null ? null : hitDictionary.findUriIds(uris);
+            if (uriIds != null && uriIds.isEmpty()) {
+                return;
+            }
+
+            if (!unique) {
+                endpointHitRollupRepository.streamStats(uriIds,
+                        StatsRangePlanner.plan(start, endExclusive, HITS_GRANULARITIES),
+                        row -> consumer.accept(hitDictionary.decode(row)));
+            } else if (exact) {
+                endpointHitRepository.streamDistinctIpStats(uriIds, start, end,
+                        row -> consumer.accept(hitDictionary.decode(row)));
+            } else {
+                // скетчи объединяются в памяти, поэтому приближенный результат выдается уже собранным
+                hitDictionary.decode(endpointHitRollupRepository.findApproximateUniqueStats(uriIds,
+                        StatsRangePlanner.plan(start, endExclusive, UNIQUE_GRANULARITIES))).forEach(consumer);
+            }
+        });
+    }
+
+    private void checkRange(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || start.isAfter(end)) {
+            throw new BadRequestException("Даты не должны быть пустыми и start должен предшествовать end");
         }
     }
 
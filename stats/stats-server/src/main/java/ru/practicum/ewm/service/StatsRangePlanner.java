@@ -0,0 +1,47 @@
+package ru.practicum.ewm.service;
+
+import lombok.experimental.UtilityClass;
+import ru.practicum.ewm.model.RollupGranularity;
+import ru.practicum.ewm.model.StatsRangeSegment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбивает диапазон [from, to) на части так, чтобы как можно большая его доля
+ * покрывалась самыми крупными агрегатами, а по исходным посещениям считались только "рваные" края.
+ */
+@UtilityClass
+public class StatsRangePlanner {
+
+    // granularities перечисляются от самой крупной к самой мелкой
+    public List<StatsRangeSegment> plan(LocalDateTime from, LocalDateTime to, List<RollupGranularity> granularities) {
+        List<StatsRangeSegment> segments = new ArrayList<>();
+        plan(from, to, granularities, 0, segments);
+        return segments;
+    }
+
+    private void plan(LocalDateTime from, LocalDateTime to, List<RollupGranularity> granularities, int level,
+                      List<StatsRangeSegment> segments) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (level == granularities.size()) {
+            segments.add(StatsRangeSegment.raw(from, to));
+            return;
+        }
+
+        RollupGranularity granularity = granularities.get(level);
+        LocalDateTime alignedFrom = granularity.ceil(from);
+        LocalDateTime alignedTo = granularity.floor(to);
+        if (!alignedFrom.isBefore(alignedTo)) {
+            plan(from, to, granularities, level + 1, segments);
+            return;
+        }
+
+        plan(from, alignedFrom, granularities, level + 1, segments);
+        segments.add(new StatsRangeSegment(granularity, alignedFrom, alignedTo));
+        plan(alignedTo, to, granularities, level + 1, segments);
+    }
+}
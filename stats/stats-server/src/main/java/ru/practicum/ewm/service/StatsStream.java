@@ -0,0 +1,12 @@
+package ru.practicum.ewm.service;
+
+import ru.practicum.ewm.ViewStatsOutputDto;
+
+import java.util.function.Consumer;
+
+// Отложенное чтение статистики: строки передаются consumer по одной, не накапливаясь в памяти
+@FunctionalInterface
+public interface StatsStream {
+
+    void forEach(Consumer<ViewStatsOutputDto> consumer);
+}
@@ -0,0 +1,33 @@
+package ru.practicum.ewm.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.config.DeltaFeedProperties;
+import ru.practicum.ewm.repository.UriHitDeltaRepository;
+
+import java.time.LocalDateTime;
+
+// Удаление приращений старше retention из журнала uri_hit_delta
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UriHitDeltaPurger {
+
+    private final DeltaFeedProperties properties;
+    private final UriHitDeltaRepository uriHitDeltaRepository;
+
+    @Scheduled(fixedDelayString = "${stats.delta-feed.purge-interval:PT1H}")
+    public void purge() {
+        try {
+            int deleted = uriHitDeltaRepository.purgeOlderThan(LocalDateTime.now().minus(properties.getRetention()));
+            if (deleted > 0) {
+                log.info("Удалено {} устаревших приращений посещений", deleted);
+            }
+        } catch (DataAccessException e) {
+            log.error("Ошибка при удалении устаревших приращений посещений", e);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package ru.practicum.ewm.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import ru.practicum.ewm.config.WriteBehindProperties;
+import ru.practicum.ewm.exception.BadRequestException;
+import ru.practicum.ewm.exception.TooManyRequestsException;
+import ru.practicum.ewm.model.EndpointHit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Буфер отложенной записи посещений.
+ * Запросы только кладут посещения в ограниченную очередь, а единственный поток-писатель
+ * сбрасывает их в endpoint_hit пачками: сразу при накоплении batch-size посещений
+ * или по истечении flush-interval, а также при остановке приложения.
+ * Клиент уже получил ответ, поэтому пачка, которую не удалось записать из-за недоступности БД, не отбрасывается:
+ * поток-писатель повторяет ее запись с растущей паузой, а очередь тем временем заполняется и включает overflow-policy.
+ * Пачка с ошибкой в данных записывается по одному посещению, чтобы потерять только некорректные.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "stats.write-behind", name = "enabled", havingValue = "true")
+public class WriteBehindHitBuffer {
+
+    private final WriteBehindProperties properties;
+    private final EndpointHitWriter endpointHitWriter;
+    private final BlockingQueue<EndpointHit> queue;
+    private final Thread flusher;
+    private final ReentrantLock offerLock = new ReentrantLock();
+    private final Condition spaceAvailable = offerLock.newCondition();
+
+    private final Timer flushTimer;
+    private final Counter droppedCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean running = true;
+    private volatile long shutdownDeadline;
+
+    public WriteBehindHitBuffer(WriteBehindProperties properties,
+                                EndpointHitWriter endpointHitWriter,
+                                MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.endpointHitWriter = endpointHitWriter;
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        this.flusher = new Thread(this::runFlushLoop, "hit-flusher");
+        this.flusher.setDaemon(true);
+
+        Gauge.builder("stats.hits.buffer.depth", queue, BlockingQueue::size)
+                .description("Количество посещений, ожидающих записи в БД")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("stats.hits.buffer.flush")
+                .description("Время записи пачки посещений в БД")
+                .register(meterRegistry);
+        this.droppedCounter = meterRegistry.counter("stats.hits.buffer.dropped");
+        this.rejectedCounter = meterRegistry.counter("stats.hits.buffer.rejected");
+        this.failedCounter = meterRegistry.counter("stats.hits.buffer.failed");
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+        log.info("Включена отложенная запись посещений: capacity = {}, batchSize = {}, flushInterval = {}, overflowPolicy = {}",
+                properties.getCapacity(), properties.getBatchSize(), properties.getFlushInterval(), properties.getOverflowPolicy());
+    }
+
+    // Пачка посещений ставится в очередь целиком или не ставится вовсе, поэтому повтор после 429 не дублирует посещения
+    public void offer(List<EndpointHit> endpointHits) {
+        // такая пачка не поместится никогда, поэтому повтор бесполезен: это ошибка запроса, а не перегрузка
+        if (endpointHits.size() > properties.getCapacity()) {
+            rejectedCounter.increment(endpointHits.size());
+            throw new BadRequestException("Пачка из " + endpointHits.size()
+                    + " посещений больше буфера отложенной записи (" + properties.getCapacity() + ")");
+        }
+        offerLock.lock();
+        try {
+            if (!running) {
+                rejectedCounter.increment(endpointHits.size());
+                throw new TooManyRequestsException("Сервис статистики останавливается и не принимает посещения");
+            }
+
+            switch (properties.getOverflowPolicy()) {
+                case BLOCK -> offerBlocking(endpointHits);
+                case DROP_OLDEST -> endpointHits.forEach(this::offerDroppingOldest);
+                case REJECT -> offerOrReject(endpointHits);
+            }
+        } finally {
+            offerLock.unlock();
+        }
+
+        if (queue.size() >= properties.getBatchSize()) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // после снятия флага под блокировкой ни одна пачка уже не попадет в очередь, поэтому финальный сброс ничего не теряет
+        offerLock.lock();
+        try {
+            shutdownDeadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+            running = false;
+            spaceAvailable.signalAll();
+        } finally {
+            offerLock.unlock();
+        }
+        LockSupport.unpark(flusher);
+        flusher.join(properties.getShutdownTimeout().toMillis());
+        // дописываем то, что не успел записать поток-писатель
+        flushAvailable();
+        log.info("Буфер отложенной записи посещений остановлен");
+    }
+
+    // Ожидание места под всю пачку; вызывается под offerLock, пока ждем, блокировка отпущена
+    private void offerBlocking(List<EndpointHit> endpointHits) {
+        long remainingNanos = properties.getOfferTimeout().toNanos();
+        try {
+            while (queue.remainingCapacity() < endpointHits.size()) {
+                if (remainingNanos <= 0 || !running) {
+                    reject(endpointHits.size());
+                }
+                remainingNanos = spaceAvailable.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(endpointHits.size());
+        }
+        queue.addAll(endpointHits);
+    }
+
+    private void offerDroppingOldest(EndpointHit endpointHit) {
+        while (!queue.offer(endpointHit)) {
+            if (queue.poll() != null) {
+                droppedCounter.increment();
+            }
+        }
+    }
+
+    // Очередь пополняется только под offerLock, а поток-писатель только забирает, поэтому проверенное место не исчезнет
+    private void offerOrReject(List<EndpointHit> endpointHits) {
+        if (queue.remainingCapacity() < endpointHits.size()) {
+            reject(endpointHits.size());
+        }
+        queue.addAll(endpointHits);
+    }
+
+    private void reject(int count) {
+        rejectedCounter.increment(count);
+        throw new TooManyRequestsException("Буфер посещений переполнен");
+    }
+
+    private void runFlushLoop() {
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        while (running) {
+            if (queue.size() < properties.getBatchSize()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flushAvailable();
+        }
+    }
+
+    private void flushAvailable() {
+        List<EndpointHit> batch = new ArrayList<>(properties.getBatchSize());
+        while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+            signalSpaceAvailable();
+            flush(batch);
+            batch = new ArrayList<>(properties.getBatchSize());
+        }
+    }
+
+    private void signalSpaceAvailable() {
+        offerLock.lock();
+        try {
+            spaceAvailable.signalAll();
+        } finally {
+            offerLock.unlock();
+        }
+    }
+
+    // Пачка остается у потока-писателя, пока не запишется; при остановке повторы ограничены shutdown-timeout
+    private void flush(List<EndpointHit> batch) {
+        long backoffNanos = properties.getRetryInitialBackoff().toNanos();
+        while (true) {
+            try {
+                flushTimer.record(() -> endpointHitWriter.write(batch));
+                return;
+            } catch (DataAccessResourceFailureException | TransientDataAccessException | RecoverableDataAccessException
+                     | CannotCreateTransactionException e) {
+                if (!running && System.nanoTime() + backoffNanos > shutdownDeadline) {
+                    failedCounter.increment(batch.size());
+                    log.error("БД недоступна при остановке, не записана пачка из {} посещений", batch.size(), e);
+                    return;
+                }
+                log.warn("БД недоступна, повтор записи пачки из {} посещений через {} мс: {}",
+                        batch.size(), backoffNanos / 1_000_000, e.getMessage());
+                LockSupport.parkNanos(this, backoffNanos);
+                backoffNanos = Math.min(backoffNanos * 2, properties.getRetryMaxBackoff().toNanos());
+            } catch (Exception e) {
+                log.warn("Ошибка в данных пачки из {} посещений, записываем их по одному: {}", batch.size(), e.getMessage());
+                flushIndividually(batch);
+                return;
+            }
+        }
+    }
+
+    private void flushIndividually(List<EndpointHit> batch) {
+        for (EndpointHit endpointHit : batch) {
+            try {
+                endpointHitWriter.write(List.of(endpointHit));
+            } catch (Exception e) {
+                failedCounter.increment();
+                log.error("Не удалось записать посещение {} {}", endpointHit.getApp(), endpointHit.getUri(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.ewm.sketch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Скетч HyperLogLog для приближенного подсчета количества уникальных значений (ip).
+ * Используется 2^11 = 2048 однобайтовых регистров, поэтому сериализованный скетч занимает 2 КБ,
+ * а относительная стандартная ошибка оценки составляет 1.04 / sqrt(2048) ≈ 2.3%
+ * (примерно в 95% случаев ошибка не превышает 4.6%).
+ * Скетчи объединяются взятием максимума по регистрам, поэтому объединение скетчей
+ * за несколько интервалов дает оценку количества уникальных значений за весь диапазон.
+ */
+public class HyperLogLog {
+
+    public static final int PRECISION = 11;
+    public static final int REGISTER_COUNT = 1 << PRECISION;
+    public static final double RELATIVE_STANDARD_ERROR = 1.04 / Math.sqrt(REGISTER_COUNT);
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTER_COUNT];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return new HyperLogLog();
+        }
+        if (bytes.length != REGISTER_COUNT) {
+            throw new IllegalArgumentException("Некорректный размер скетча HyperLogLog: " + bytes.length);
+        }
+        return new HyperLogLog(Arrays.copyOf(bytes, REGISTER_COUNT));
+    }
+
+    public byte[] toBytes() {
+        return Arrays.copyOf(registers, REGISTER_COUNT);
+    }
+
+    public void add(String value) {
+        add(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void add(byte[] value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        // позиция первой единицы в оставшихся битах; сторожевой бит ограничивает ранг
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (registers[index] < rank) {
+            registers[index] = rank;
+        }
+    }
+
+    public HyperLogLog merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTER_COUNT; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeroRegisters = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeroRegisters++;
+            }
+        }
+
+        double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+        // на малых кардинальностях точнее линейный подсчет по пустым регистрам
+        if (estimate <= 2.5 * REGISTER_COUNT && zeroRegisters > 0) {
+            estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeroRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    // FNV-1a с финализатором MurmurHash3, чтобы все биты хэша зависели от всех байтов значения
+    private static long hash(byte[] value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
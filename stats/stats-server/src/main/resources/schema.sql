@@ -1,11 +1,138 @@
-DROP TABLE if EXISTS endpoint_hit;
+-- схема создается только при отсутствии таблиц: данные посещений переживают перезапуск сервиса
 
+-- переход с исходной несекционированной таблицы endpoint_hit (app, uri и ip строками): она переименовывается
+-- до создания новой схемы, а ее строки переносит LegacyHitMigrator через словари и общий путь записи.
+-- Тело блока в одинарных кавычках: скрипт делится на команды по точке с запятой вне кавычек
+DO '
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(''public.endpoint_hit'')) = ''r'' THEN
+        ALTER TABLE endpoint_hit RENAME TO endpoint_hit_legacy;
+        ALTER TABLE endpoint_hit_legacy RENAME CONSTRAINT endpoint_hit_pkey TO endpoint_hit_legacy_pkey;
+        ALTER TABLE endpoint_hit_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+    END IF;
+END';
+
+CREATE TABLE IF NOT EXISTS stats_app
+(
+    id  SERIAL PRIMARY KEY,
+    app VARCHAR(100) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS stats_uri
+(
+    id  SERIAL PRIMARY KEY,
+    uri VARCHAR(100) NOT NULL UNIQUE
+);
 
 CREATE TABLE IF NOT EXISTS endpoint_hit
 (
-    id        BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
-    app       VARCHAR(100)                NOT NULL,
-    uri       VARCHAR(100)                NOT NULL,
-    ip        VARCHAR(100)                NOT NULL,
-    timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL
+    id          BIGSERIAL                   NOT NULL,
+    app_id      INTEGER                     NOT NULL,
+    uri_id      INTEGER                     NOT NULL,
+    ip          BYTEA                       NOT NULL,
+    timestamp   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    written_xid XID8                        NOT NULL DEFAULT '0',
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE IF NOT EXISTS endpoint_hit_default PARTITION OF endpoint_hit DEFAULT;
+
+CREATE INDEX IF NOT EXISTS endpoint_hit_uri_timestamp_idx ON endpoint_hit (uri_id, timestamp);
+CREATE INDEX IF NOT EXISTS endpoint_hit_timestamp_idx ON endpoint_hit (timestamp);
+
+-- транзакция записи посещений; агрегаты обновляются в фоне по посещениям выше отметки, 0 - уже учтены в агрегатах
+ALTER TABLE endpoint_hit ADD COLUMN IF NOT EXISTS written_xid XID8 NOT NULL DEFAULT '0';
+CREATE INDEX IF NOT EXISTS endpoint_hit_written_xid_idx ON endpoint_hit (written_xid);
+
+-- отметка фонового обновления агрегатов: посещения транзакций с меньшими идентификаторами уже учтены;
+-- начальная отметка - самая старая незавершенная транзакция, т.к. более ранние посещения учтены при записи
+CREATE TABLE IF NOT EXISTS rollup_watermark
+(
+    name      VARCHAR PRIMARY KEY,
+    watermark BIGINT NOT NULL
+);
+
+INSERT INTO rollup_watermark (name, watermark)
+VALUES ('endpoint_hit_rollup', pg_snapshot_xmin(pg_current_snapshot())::text::bigint)
+ON CONFLICT (name) DO NOTHING;
+
+CREATE TABLE IF NOT EXISTS endpoint_hit_rollup_minute
+(
+    app_id INTEGER                     NOT NULL,
+    uri_id INTEGER                     NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits   BIGINT                      NOT NULL,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX IF NOT EXISTS endpoint_hit_rollup_minute_bucket_idx ON endpoint_hit_rollup_minute (bucket);
+
+CREATE TABLE IF NOT EXISTS endpoint_hit_rollup_hour
+(
+    app_id    INTEGER                     NOT NULL,
+    uri_id    INTEGER                     NOT NULL,
+    bucket    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits      BIGINT                      NOT NULL,
+    ip_sketch BYTEA,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX IF NOT EXISTS endpoint_hit_rollup_hour_bucket_idx ON endpoint_hit_rollup_hour (bucket);
+
+CREATE TABLE IF NOT EXISTS endpoint_hit_rollup_day
+(
+    app_id    INTEGER                     NOT NULL,
+    uri_id    INTEGER                     NOT NULL,
+    bucket    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits      BIGINT                      NOT NULL,
+    ip_sketch BYTEA,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX IF NOT EXISTS endpoint_hit_rollup_day_bucket_idx ON endpoint_hit_rollup_day (bucket);
+
+CREATE TABLE IF NOT EXISTS endpoint_hit_rollup_month
+(
+    app_id    INTEGER                     NOT NULL,
+    uri_id    INTEGER                     NOT NULL,
+    bucket    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits      BIGINT                      NOT NULL,
+    ip_sketch BYTEA,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX IF NOT EXISTS endpoint_hit_rollup_month_bucket_idx ON endpoint_hit_rollup_month (bucket);
+
+CREATE TABLE IF NOT EXISTS event_view_totals
+(
+    event_id    BIGINT PRIMARY KEY,
+    hits        BIGINT NOT NULL,
+    unique_hits BIGINT NOT NULL,
+    changed_xid XID8   NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS event_view_totals_changed_xid_idx ON event_view_totals (changed_xid);
+
+CREATE TABLE IF NOT EXISTS uri_visitor
+(
+    uri_id INTEGER NOT NULL,
+    ip     BYTEA   NOT NULL,
+    PRIMARY KEY (uri_id, ip)
 );
+
+CREATE TABLE IF NOT EXISTS uri_hit_delta
+(
+    id          BIGSERIAL PRIMARY KEY,
+    uri_id      INTEGER                     NOT NULL,
+    hits        BIGINT                      NOT NULL,
+    unique_hits BIGINT                      NOT NULL,
+    changed_xid XID8                        NOT NULL,
+    created     TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS uri_hit_delta_changed_xid_idx ON uri_hit_delta (changed_xid);
+CREATE INDEX IF NOT EXISTS uri_hit_delta_created_idx ON uri_hit_delta (created);
+
+-- множество посетителей URI хранится за всю историю, чтобы повторный визит не считался уникальным
+DROP INDEX IF EXISTS uri_visitor_last_seen_idx;
+ALTER TABLE uri_visitor DROP COLUMN IF EXISTS last_seen;
@@ -0,0 +1,208 @@
+package ru.practicum.ewm.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.ewm.config.OverflowPolicy;
+import ru.practicum.ewm.config.WriteBehindProperties;
+import ru.practicum.ewm.exception.BadRequestException;
+import ru.practicum.ewm.exception.TooManyRequestsException;
+import ru.practicum.ewm.model.EndpointHit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class WriteBehindHitBufferTest {
+
+    private final EndpointHitWriter endpointHitWriter = mock(EndpointHitWriter.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WriteBehindProperties properties = new WriteBehindProperties();
+    // пачки в том виде, в каком они были записаны в БД
+    private final List<List<String>> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties.setEnabled(true);
+        properties.setCapacity(100);
+        properties.setBatchSize(10);
+        properties.setFlushInterval(Duration.ofMillis(50));
+        properties.setOverflowPolicy(OverflowPolicy.REJECT);
+        properties.setRetryInitialBackoff(Duration.ofMillis(1));
+        properties.setRetryMaxBackoff(Duration.ofMillis(20));
+        properties.setShutdownTimeout(Duration.ofMillis(200));
+    }
+
+    @Test
+    void hitsAreWrittenInBatchesInOrder() throws InterruptedException {
+        writerSucceeds();
+        WriteBehindHitBuffer buffer = startedBuffer();
+        try {
+            buffer.offer(hits(0, 25));
+
+            awaitTrue(() -> writtenUris().size() == 25);
+        } finally {
+            buffer.stop();
+        }
+
+        assertThat(writtenUris()).containsExactlyElementsOf(uris(0, 25));
+        assertThat(batchSizes()).allMatch(size -> size <= properties.getBatchSize());
+    }
+
+    @Test
+    void batchIsRetriedWhileDatabaseIsUnavailable() throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger(3);
+        doAnswer(invocation -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new DataAccessResourceFailureException("БД недоступна");
+            }
+            return record(invocation.getArgument(0));
+        }).when(endpointHitWriter).write(anyList());
+        WriteBehindHitBuffer buffer = startedBuffer();
+        try {
+            buffer.offer(hits(0, 10));
+
+            awaitTrue(() -> writtenUris().size() == 10);
+        } finally {
+            buffer.stop();
+        }
+
+        // пачка записана целиком и один раз, без перехода к записи по одному
+        assertThat(batchSizes()).containsExactly(10);
+        assertThat(meterRegistry.counter("stats.hits.buffer.failed").count()).isZero();
+    }
+
+    @Test
+    void invalidHitIsSkippedAndTheRestAreWrittenOneByOne() throws InterruptedException {
+        doAnswer(invocation -> {
+            List<EndpointHit> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(hit -> hit.getUri().equals("/events/3"))) {
+                throw new DataIntegrityViolationException("некорректное посещение");
+            }
+            return record(batch);
+        }).when(endpointHitWriter).write(anyList());
+        WriteBehindHitBuffer buffer = startedBuffer();
+        try {
+            buffer.offer(hits(0, 10));
+
+            awaitTrue(() -> writtenUris().size() == 9);
+        } finally {
+            buffer.stop();
+        }
+
+        assertThat(writtenUris()).doesNotContain("/events/3").hasSize(9);
+        assertThat(meterRegistry.counter("stats.hits.buffer.failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shutdownGivesUpOnUnavailableDatabaseAfterTimeout() throws InterruptedException {
+        doAnswer(invocation -> {
+            throw new DataAccessResourceFailureException("БД недоступна");
+        }).when(endpointHitWriter).write(anyList());
+        WriteBehindHitBuffer buffer = new WriteBehindHitBuffer(properties, endpointHitWriter, meterRegistry);
+        buffer.offer(hits(0, 5));
+
+        long started = System.nanoTime();
+        buffer.stop();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(meterRegistry.counter("stats.hits.buffer.failed").count()).isEqualTo(5);
+    }
+
+    @Test
+    void stopWritesBufferedHits() throws InterruptedException {
+        writerSucceeds();
+        WriteBehindHitBuffer buffer = new WriteBehindHitBuffer(properties, endpointHitWriter, meterRegistry);
+        buffer.offer(hits(0, 15));
+
+        buffer.stop();
+
+        assertThat(writtenUris()).containsExactlyElementsOf(uris(0, 15));
+        assertThatThrownBy(() -> buffer.offer(hits(15, 16))).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void overflowingBatchIsRejectedWhole() {
+        WriteBehindHitBuffer buffer = new WriteBehindHitBuffer(properties, endpointHitWriter, meterRegistry);
+        buffer.offer(hits(0, 95));
+
+        assertThatThrownBy(() -> buffer.offer(hits(95, 105))).isInstanceOf(TooManyRequestsException.class);
+
+        // отклоненная пачка не попала в буфер даже частично: места хватает ровно на 5 посещений
+        buffer.offer(hits(95, 100));
+        assertThatThrownBy(() -> buffer.offer(hits(100, 101))).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void batchLargerThanCapacityIsBadRequest() {
+        WriteBehindHitBuffer buffer = new WriteBehindHitBuffer(properties, endpointHitWriter, meterRegistry);
+
+        assertThatThrownBy(() -> buffer.offer(hits(0, 101))).isInstanceOf(BadRequestException.class);
+    }
+
+    private WriteBehindHitBuffer startedBuffer() {
+        WriteBehindHitBuffer buffer = new WriteBehindHitBuffer(properties, endpointHitWriter, meterRegistry);
+        buffer.start();
+        return buffer;
+    }
+
+    private void writerSucceeds() {
+        doAnswer(invocation -> record(invocation.getArgument(0))).when(endpointHitWriter).write(anyList());
+    }
+
+    private Void record(List<EndpointHit> batch) {
+        synchronized (written) {
+            written.add(batch.stream().map(EndpointHit::getUri).toList());
+        }
+        return null;
+    }
+
+    private List<String> writtenUris() {
+        synchronized (written) {
+            return written.stream().flatMap(List::stream).toList();
+        }
+    }
+
+    private List<Integer> batchSizes() {
+        synchronized (written) {
+            return written.stream().map(List::size).toList();
+        }
+    }
+
+    private static List<EndpointHit> hits(int fromInclusive, int toExclusive) {
+        return IntStream.range(fromInclusive, toExclusive)
+                .mapToObj(i -> {
+                    EndpointHit hit = new EndpointHit();
+                    hit.setApp("ewm-main");
+                    hit.setUri("/events/" + i);
+                    hit.setIp(new byte[]{10, 0, 0, (byte) i});
+                    hit.setTimestamp(LocalDateTime.now());
+                    return hit;
+                })
+                .toList();
+    }
+
+    private static List<String> uris(int fromInclusive, int toExclusive) {
+        return IntStream.range(fromInclusive, toExclusive).mapToObj(i -> "/events/" + i).toList();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("условие не выполнено за 5 секунд").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.ewm.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    // три стандартные ошибки: при детерминированном хэше результат стабилен, а запас покрывает смещение оценки
+    private static final double TOLERANCE = 3 * HyperLogLog.RELATIVE_STANDARD_ERROR;
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertThat(new HyperLogLog().estimate()).isZero();
+    }
+
+    @Test
+    void estimateStaysWithinErrorBounds() {
+        for (int cardinality : new int[]{1, 10, 100, 1_000, 5_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = sketchOf(0, cardinality);
+
+            assertThat((double) sketch.estimate())
+                    .as("оценка для %d уникальных ip", cardinality)
+                    .isCloseTo(cardinality, within(Math.max(1.0, cardinality * TOLERANCE)));
+        }
+    }
+
+    @Test
+    void repeatedValuesDoNotChangeSketch() {
+        HyperLogLog sketch = sketchOf(0, 1_000);
+        byte[] registers = sketch.toBytes();
+
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add(ip(i));
+        }
+
+        assertThat(sketch.toBytes()).isEqualTo(registers);
+    }
+
+    @Test
+    void mergeEqualsSketchOfUnion() {
+        HyperLogLog left = sketchOf(0, 30_000);
+        HyperLogLog right = sketchOf(20_000, 50_000);
+
+        HyperLogLog merged = HyperLogLog.fromBytes(left.toBytes()).merge(right);
+
+        assertThat(merged.toBytes()).isEqualTo(sketchOf(0, 50_000).toBytes());
+        assertThat((double) merged.estimate()).isCloseTo(50_000, within(50_000 * TOLERANCE));
+        // объединение не зависит от порядка и не меняет объединяемый скетч
+        assertThat(HyperLogLog.fromBytes(right.toBytes()).merge(left).toBytes()).isEqualTo(merged.toBytes());
+        assertThat(right.toBytes()).isEqualTo(sketchOf(20_000, 50_000).toBytes());
+    }
+
+    @Test
+    void mergeOfHourlySketchesCountsEachVisitorOnce() {
+        HyperLogLog total = new HyperLogLog();
+        // одни и те же 10 000 ip в каждом из 24 интервалов
+        for (int hour = 0; hour < 24; hour++) {
+            total.merge(sketchOf(0, 10_000));
+        }
+
+        assertThat((double) total.estimate()).isCloseTo(10_000, within(10_000 * TOLERANCE));
+    }
+
+    @Test
+    void serializedSketchIsRestored() {
+        HyperLogLog sketch = sketchOf(0, 12_345);
+
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes).hasSize(HyperLogLog.REGISTER_COUNT);
+        assertThat(HyperLogLog.fromBytes(bytes).estimate()).isEqualTo(sketch.estimate());
+        assertThat(HyperLogLog.fromBytes(null).estimate()).isZero();
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[16])).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static HyperLogLog sketchOf(int fromInclusive, int toExclusive) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = fromInclusive; i < toExclusive; i++) {
+            sketch.add(ip(i));
+        }
+        return sketch;
+    }
+
+    // ip хранятся в скетче как 4 байта IPv4, соседние адреса отличаются младшими байтами
+    private static byte[] ip(int i) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(0x0a000000 + i).array();
+    }
+}